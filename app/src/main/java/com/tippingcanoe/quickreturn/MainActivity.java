@@ -1,5 +1,6 @@
 package com.tippingcanoe.quickreturn;
 
+import android.os.Build;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
 import android.support.v7.app.ActionBarActivity;
@@ -10,6 +11,7 @@ import android.widget.CheckBox;
 import android.widget.CompoundButton;
 import android.widget.FrameLayout;
 import android.widget.TextView;
+import com.tippingcanoe.quickreturn.library.NineOldAndroidsAnimationBackend;
 import com.tippingcanoe.quickreturn.library.QuickReturnContainer;
 import com.tippingcanoe.quickreturn.library.RevealListenerType;
 
@@ -111,6 +113,10 @@ public class MainActivity extends ActionBarActivity {
 
 			quickReturn = (QuickReturnContainer) rootView.findViewById(R.id.quickReturn);
 
+			if (Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+				quickReturn.setAnimationBackend(new NineOldAndroidsAnimationBackend());
+			}
+
 			quickReturn.setObservedView(listView);
 			quickReturn.setOffsetView(offsetView);
 
@@ -0,0 +1,150 @@
+package com.tippingcanoe.quickreturn.benchmark;
+
+import com.tippingcanoe.quickreturn.library.QuickReturnEngine;
+import com.tippingcanoe.quickreturn.library.QuickReturnSlots;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of handling scroll events and of working out where a transition should take every view, with a varying number
+ * of attached headers and footers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuickReturnEngineBenchmark {
+	/**
+	 * The number of headers and footers together, split evenly with any odd one out a header.
+	 */
+	@Param({"1", "5", "20", "50"})
+	public int viewCount;
+
+	protected QuickReturnEngine engine;
+	protected QuickReturnEngine translatingEngine;
+	protected int y;
+	protected int event;
+
+	@Setup
+	public void setUp () {
+		engine = createEngine(viewCount);
+		translatingEngine = createEngine(viewCount);
+		translatingEngine.getScrollTally().setMinDifferenceBeforeHide(0);
+		translatingEngine.getScrollTally().setMinDifferenceBeforeShow(0);
+		y = 0;
+		event = 0;
+	}
+
+	protected static QuickReturnEngine createEngine ( int viewCount ) {
+		QuickReturnEngine engine = new QuickReturnEngine();
+		addSlots(engine.getHeaderSlots(), viewCount - viewCount / 2);
+		addSlots(engine.getFooterSlots(), viewCount / 2);
+		return engine;
+	}
+
+	protected static void addSlots ( QuickReturnSlots slots, int count ) {
+		for (int i = 0; i < count; i++) {
+			// Every fifth view is a plain one, every seventh permanently hidden.
+			int flags = i % 5 == 4 ? 0 : QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN;
+			if (i % 7 == 6) {
+				flags |= QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN;
+			}
+
+			slots.setHeight(slots.add(flags), 48 + (i % 3) * 16);
+		}
+	}
+
+	/**
+	 * Scroll events that each move the views, alternating direction every 100 events.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public int translate () {
+		return scroll(translatingEngine, 40);
+	}
+
+	/**
+	 * Scroll events too small to add up to either threshold before turning around, so only the tally is kept.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public int tally () {
+		return scroll(engine, 1);
+	}
+
+	protected int scroll ( QuickReturnEngine engine, int distance ) {
+		int oldY = y;
+		y += (event++ / 100) % 2 == 0 ? distance : -distance;
+
+		return engine.onScrollChanged(y, oldY);
+	}
+
+	/**
+	 * Working out the target of every view for hiding after a view changed height, as starting a hide transition does.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public long hideTargets () {
+		QuickReturnSlots headerSlots = engine.getHeaderSlots();
+		QuickReturnSlots footerSlots = engine.getFooterSlots();
+		headerSlots.setHeight(0, 48 + (event++ % 2) * 8);
+
+		long sum = 0;
+		for (int i = 0; i < headerSlots.size(); i++) {
+			if (QuickReturnEngine.isHideable(headerSlots, i)) {
+				sum -= headerSlots.getHideableOffset(i);
+			}
+		}
+
+		for (int i = 0; i < footerSlots.size(); i++) {
+			if (QuickReturnEngine.isHideable(footerSlots, i)) {
+				sum += footerSlots.getHideableOffset(i);
+			}
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Working out the target of every view for showing after a view changed height, as starting a show transition does.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public long showTargets () {
+		QuickReturnSlots headerSlots = engine.getHeaderSlots();
+		QuickReturnSlots footerSlots = engine.getFooterSlots();
+		headerSlots.setHeight(0, 48 + (event++ % 2) * 8);
+
+		long sum = 0;
+		for (int i = 0; i < headerSlots.size(); i++) {
+			if (QuickReturnEngine.isQuickReturning(headerSlots, i)) {
+				sum -= headerSlots.getPermanentlyHiddenOffset(i);
+			}
+		}
+
+		for (int i = 0; i < footerSlots.size(); i++) {
+			if (QuickReturnEngine.isQuickReturning(footerSlots, i)) {
+				sum += footerSlots.getPermanentlyHiddenOffset(i);
+			}
+		}
+
+		return sum;
+	}
+}
@@ -0,0 +1,112 @@
+package com.tippingcanoe.quickreturn.benchmark;
+
+import com.tippingcanoe.quickreturn.library.ItemHeightIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of working out the scroll offset of a list for each scroll event: recording the heights of the rows on screen
+ * and summing those above the first visible one, as IndexedScrollYProvider does behind Helpers.getScrollY.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScrollOffsetBenchmark {
+	protected static final int VISIBLE_ROWS = 12;
+	protected static final int ESTIMATED_ROW_HEIGHT = 140;
+
+	@Param({"1000", "100000", "1000000"})
+	public int rowCount;
+
+	/**
+	 * The share of the rows whose heights are held at once.
+	 */
+	@Param({"0.01", "0.1", "1"})
+	public double cacheDensity;
+
+	protected ItemHeightIndex itemHeightIndex;
+	protected int firstVisibleRow;
+	protected int direction;
+
+	@Setup
+	public void setUp () {
+		itemHeightIndex = new ItemHeightIndex(Math.max(VISIBLE_ROWS * 4, (int) (rowCount * cacheDensity)));
+		itemHeightIndex.setHeightEstimator(new ItemHeightIndex.HeightEstimator() {
+			@Override
+			public int estimateHeight ( int position ) {
+				return ESTIMATED_ROW_HEIGHT;
+			}
+
+			@Override
+			public int estimateAverageHeight () {
+				return ESTIMATED_ROW_HEIGHT;
+			}
+		});
+
+		// Scroll through the whole list once, as a user would have before reaching the middle.
+		for (int row = 0; row < rowCount; row++) {
+			itemHeightIndex.setHeight(row, rowHeight(row));
+		}
+
+		firstVisibleRow = rowCount / 2;
+		direction = 1;
+	}
+
+	/**
+	 * A fling moving a few rows per event, turning around at either end of the list.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public long fling () {
+		firstVisibleRow += direction * 3;
+
+		if (firstVisibleRow + VISIBLE_ROWS >= rowCount) {
+			firstVisibleRow = rowCount - VISIBLE_ROWS;
+			direction = -1;
+		} else if (firstVisibleRow <= 0) {
+			firstVisibleRow = 0;
+			direction = 1;
+		}
+
+		return layOut();
+	}
+
+	/**
+	 * Dragging a fast scroll thumb, jumping to rows far from the previous ones.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public long jump () {
+		firstVisibleRow = (int) ((firstVisibleRow + 104729L) % (rowCount - VISIBLE_ROWS));
+
+		return layOut();
+	}
+
+	protected long layOut () {
+		for (int i = 0; i < VISIBLE_ROWS; i++) {
+			itemHeightIndex.setHeight(firstVisibleRow + i, rowHeight(firstVisibleRow + i));
+		}
+
+		return itemHeightIndex.getOffset(firstVisibleRow);
+	}
+
+	protected static int rowHeight ( int row ) {
+		return 80 + (row * 31) % 120;
+	}
+}
@@ -0,0 +1,154 @@
+package com.tippingcanoe.quickreturn.benchmark;
+
+import com.tippingcanoe.quickreturn.library.QuickReturnEngine;
+import com.tippingcanoe.quickreturn.library.QuickReturnSlots;
+import com.tippingcanoe.quickreturn.library.ScrollTraceReader;
+import com.tippingcanoe.quickreturn.library.ScrollTraceRecorder;
+import com.tippingcanoe.quickreturn.library.ScrollTraceReplay;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Replays a trace recorded with ScrollTraceRecorder through the engine. The timeline of every event with the action,
+ * animation state and translations it resulted in goes to standard output, one tab separated line per event, so that
+ * the timelines of two engines can be diffed. The cost of handling each type of event, measured over repeated replays
+ * after warming up, goes to standard error.
+ *
+ * Usage: ScrollTraceReplayTool trace [--warmup n] [--iterations n] [--no-timeline]
+ */
+public class ScrollTraceReplayTool {
+	protected static final String[] RECORD_NAMES = {"", "scroll", "state", "fling", "tick"};
+	protected static final String[] ACTION_NAMES = {"none", "translate", "show", "hide"};
+
+	public static void main ( String[] args ) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage: ScrollTraceReplayTool trace [--warmup n] [--iterations n] [--no-timeline]");
+			System.exit(1);
+		}
+
+		int warmup = 10;
+		int iterations = 20;
+		boolean timeline = true;
+
+		for (int i = 1; i < args.length; i++) {
+			if ("--warmup".equals(args[i])) {
+				warmup = Integer.parseInt(args[++i]);
+			} else if ("--iterations".equals(args[i])) {
+				iterations = Math.max(1, Integer.parseInt(args[++i]));
+			} else if ("--no-timeline".equals(args[i])) {
+				timeline = false;
+			}
+		}
+
+		byte[] trace = Files.readAllBytes(new File(args[0]).toPath());
+
+		if (timeline) {
+			printTimeline(trace, System.out);
+		}
+
+		for (int i = 0; i < warmup; i++) {
+			new ScrollTraceReplay(new QuickReturnEngine()).replay(trace, null);
+		}
+
+		printCosts(trace, iterations, System.err);
+	}
+
+	protected static void printTimeline ( byte[] trace, final PrintStream out ) {
+		out.println("event\ttype\ttime\tinput\taction\tstate\theaders\tfooters");
+
+		new ScrollTraceReplay(new QuickReturnEngine()).replay(trace, new ScrollTraceReplay.Listener() {
+			int event = 0;
+
+			@Override
+			public void onEventReplayed ( ScrollTraceReader reader, QuickReturnEngine engine, int action, long duration ) {
+				out.print(event++);
+				out.print('\t');
+				out.print(RECORD_NAMES[reader.getType()]);
+				out.print('\t');
+				out.print(reader.getTime());
+				out.print('\t');
+				out.print(describeInput(reader));
+				out.print('\t');
+				out.print(ACTION_NAMES[action]);
+				out.print('\t');
+				out.print(engine.getAnimationState());
+				out.print('\t');
+				out.print(describeTranslations(engine.getHeaderSlots()));
+				out.print('\t');
+				out.println(describeTranslations(engine.getFooterSlots()));
+			}
+		});
+	}
+
+	protected static String describeInput ( ScrollTraceReader reader ) {
+		switch (reader.getType()) {
+			case ScrollTraceRecorder.RECORD_SCROLL:
+				return reader.getOldY() + ">" + reader.getY();
+			case ScrollTraceRecorder.RECORD_SCROLL_STATE:
+				return String.valueOf(reader.getScrollState());
+			case ScrollTraceRecorder.RECORD_FLING:
+				return String.valueOf(reader.getDistance());
+		}
+
+		return "";
+	}
+
+	protected static String describeTranslations ( QuickReturnSlots slots ) {
+		StringBuilder description = new StringBuilder();
+
+		for (int i = 0; i < slots.size(); i++) {
+			if (i > 0) {
+				description.append(',');
+			}
+
+			description.append(slots.getTranslation(i));
+		}
+
+		return description.toString();
+	}
+
+	protected static void printCosts ( byte[] trace, int iterations, PrintStream out ) {
+		final long[][] durations = new long[RECORD_NAMES.length][];
+		final int[] counts = new int[RECORD_NAMES.length];
+
+		for (int i = 0; i < iterations; i++) {
+			new ScrollTraceReplay(new QuickReturnEngine()).replay(trace, new ScrollTraceReplay.Listener() {
+				@Override
+				public void onEventReplayed ( ScrollTraceReader reader, QuickReturnEngine engine, int action, long duration ) {
+					int type = reader.getType();
+
+					if (durations[type] == null) {
+						durations[type] = new long[1024];
+					} else if (counts[type] == durations[type].length) {
+						durations[type] = Arrays.copyOf(durations[type], counts[type] * 2);
+					}
+
+					durations[type][counts[type]++] = duration;
+				}
+			});
+		}
+
+		out.println("type\tevents\tmean ns\tp50 ns\tp99 ns\tmax ns");
+
+		for (int type = 1; type < RECORD_NAMES.length; type++) {
+			if (counts[type] == 0) {
+				continue;
+			}
+
+			long[] sorted = Arrays.copyOf(durations[type], counts[type]);
+			Arrays.sort(sorted);
+
+			long sum = 0;
+			for (long duration : sorted) {
+				sum += duration;
+			}
+
+			out.println(RECORD_NAMES[type] + "\t" + counts[type] / iterations + "\t" + sum / sorted.length + "\t"
+					+ sorted[sorted.length / 2] + "\t" + sorted[(int) (sorted.length * 0.99)] + "\t" + sorted[sorted.length - 1]);
+		}
+	}
+}
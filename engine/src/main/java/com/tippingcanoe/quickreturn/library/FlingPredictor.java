@@ -0,0 +1,45 @@
+package com.tippingcanoe.quickreturn.library;
+
+/**
+ * Predicts how far a fling will scroll from its starting velocity, following the same spline deceleration curve that
+ * Android's scrollers use, so the outcome of a fling can be acted on as soon as it starts.
+ */
+public class FlingPredictor {
+	public static final float DEFAULT_SCROLL_FRICTION = 0.015f;
+
+	protected static final float GRAVITY_EARTH = 9.80665f;
+	protected static final float INCHES_PER_METER = 39.37f;
+	protected static final float DECELERATION_RATE = (float) (Math.log(0.78) / Math.log(0.9));
+	protected static final float INFLEXION = 0.35f;
+
+	protected float deceleration;
+
+	/**
+	 * @param density
+	 * 		The display's density, as a multiple of 160dpi.
+	 * @param scrollFriction
+	 * 		The friction scrollers apply, usually DEFAULT_SCROLL_FRICTION.
+	 */
+	public FlingPredictor ( float density, float scrollFriction ) {
+		deceleration = scrollFriction * GRAVITY_EARTH * INCHES_PER_METER * density * 160f * 0.84f;
+	}
+
+	/**
+	 * Returns the distance, in pixels, a fling with the specified velocity will scroll before coming to rest, with the
+	 * same sign as the velocity.
+	 *
+	 * @param velocity
+	 * 		In pixels per second.
+	 * @return
+	 */
+	public int predictDistance ( float velocity ) {
+		if (velocity == 0) {
+			return 0;
+		}
+
+		double exponent = Math.log(INFLEXION * Math.abs(velocity) / deceleration);
+		double distance = deceleration * Math.exp(DECELERATION_RATE / (DECELERATION_RATE - 1.0) * exponent);
+
+		return (int) (velocity > 0 ? distance : -distance);
+	}
+}
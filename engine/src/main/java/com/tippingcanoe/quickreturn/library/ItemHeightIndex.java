@@ -0,0 +1,619 @@
+package com.tippingcanoe.quickreturn.library;
+
+/**
+ * Maps adapter positions to their measured heights. Backed by a Fenwick tree so that both the sum of all heights
+ * before a position and updating a single height are O(log n). Sums are kept as longs so that very long lists can't
+ * overflow them.
+ *
+ * At most maxSize positions are held at once. When a position outside of that window is recorded the window slides
+ * towards it; positions left behind are folded into a single running offset and positions far ahead are dropped.
+ *
+ * Positions that haven't been measured count as 0, unless a HeightEstimator is set, in which case they hold an
+ * estimate until their real height is recorded. Heights hinted ahead of time take precedence over estimates, measured
+ * heights over both.
+ */
+public class ItemHeightIndex {
+	protected static final int DEFAULT_INITIAL_CAPACITY = 64;
+
+	protected static final byte SOURCE_ESTIMATE = 0;
+	protected static final byte SOURCE_HINT = 1;
+	protected static final byte SOURCE_MEASURED = 2;
+
+	protected int maxSize;
+	protected int[] heights;
+	protected byte[] sources;
+	protected long[] tree;
+	protected int windowStart;
+	protected long collapsedOffset;
+	protected HeightEstimator heightEstimator;
+
+	public ItemHeightIndex () {
+		this(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param maxSize
+	 * 		The maximum number of positions to hold heights for.
+	 */
+	public ItemHeightIndex ( int maxSize ) {
+		this.maxSize = Math.max(1, maxSize);
+		allocate(Math.min(DEFAULT_INITIAL_CAPACITY, this.maxSize));
+	}
+
+	public int getMaxSize () {
+		return maxSize;
+	}
+
+	/**
+	 * Returns the number of positions heights are currently held for.
+	 *
+	 * @return
+	 */
+	public int getSize () {
+		return heights.length;
+	}
+
+	/**
+	 * Returns the number of positions in the window whose height was measured or hinted rather than estimated.
+	 *
+	 * @return
+	 */
+	public int getKnownCount () {
+		int knownCount = 0;
+		for (int i = 0; i < sources.length; i++) {
+			if (sources[i] != SOURCE_ESTIMATE) {
+				knownCount++;
+			}
+		}
+
+		return knownCount;
+	}
+
+	/**
+	 * Sets the estimator used for the heights of positions that haven't been measured.
+	 *
+	 * @param heightEstimator
+	 */
+	public void setHeightEstimator ( HeightEstimator heightEstimator ) {
+		this.heightEstimator = heightEstimator;
+
+		for (int i = 0; i < heights.length; i++) {
+			if (sources[i] == SOURCE_ESTIMATE) {
+				updateSlot(i, heightEstimator != null ? heightEstimator.estimateHeight(windowStart + i) : 0);
+			}
+		}
+	}
+
+	/**
+	 * Returns the height recorded or estimated for the specified position, or 0 if it is not held.
+	 *
+	 * @param position
+	 * @return
+	 */
+	public int getHeight ( int position ) {
+		int slot = position - windowStart;
+		if (slot < 0 || slot >= heights.length) {
+			return 0;
+		}
+
+		return heights[slot];
+	}
+
+	/**
+	 * Returns whether the height held for the specified position was measured rather than estimated.
+	 *
+	 * @param position
+	 * @return
+	 */
+	public boolean isMeasured ( int position ) {
+		int slot = position - windowStart;
+		return slot >= 0 && slot < heights.length && sources[slot] == SOURCE_MEASURED;
+	}
+
+	/**
+	 * Returns the first position currently held.
+	 *
+	 * @return
+	 */
+	public int getWindowStart () {
+		return windowStart;
+	}
+
+	/**
+	 * Records the measured height of the specified position.
+	 *
+	 * @param position
+	 * @param height
+	 */
+	public void setHeight ( int position, int height ) {
+		if (position < 0) {
+			return;
+		}
+
+		ensureInWindow(position);
+
+		int slot = position - windowStart;
+		sources[slot] = SOURCE_MEASURED;
+		updateSlot(slot, height);
+	}
+
+	/**
+	 * Records the expected height of the specified position, unless it has been measured already or falls outside the
+	 * window. Grows the window up to the maximum size to hold it, but doesn't move it.
+	 *
+	 * @param position
+	 * @param height
+	 * @return The change to the sum of heights.
+	 */
+	public int setHintedHeight ( int position, int height ) {
+		int slot = position - windowStart;
+		if (slot >= heights.length) {
+			grow(slot + 1);
+		}
+
+		if (slot < 0 || slot >= heights.length || sources[slot] == SOURCE_MEASURED) {
+			return 0;
+		}
+
+		int delta = height - heights[slot];
+		sources[slot] = SOURCE_HINT;
+		updateSlot(slot, height);
+
+		return delta;
+	}
+
+	/**
+	 * Returns the sum of the heights of every position before the specified one.
+	 *
+	 * @param position
+	 * @return
+	 */
+	public long getOffset ( int position ) {
+		if (position <= 0) {
+			return 0;
+		}
+
+		if (position < windowStart) {
+			// Individual heights behind the window are gone, assume they were evenly distributed.
+			return collapsedOffset * position / windowStart;
+		}
+
+		long offset = collapsedOffset + prefixSum(Math.min(position - windowStart, heights.length));
+
+		if (heightEstimator != null && position - windowStart > heights.length) {
+			offset += (long) (position - windowStart - heights.length) * heightEstimator.estimateAverageHeight();
+		}
+
+		return offset;
+	}
+
+	/**
+	 * Replaces the heights held for positions in the specified range that are neither measured nor hinted with fresh
+	 * estimates.
+	 *
+	 * @param position
+	 * @param count
+	 */
+	public void refreshEstimates ( int position, int count ) {
+		if (heightEstimator == null) {
+			return;
+		}
+
+		int start = Math.max(0, position - windowStart);
+		int end = (int) Math.min((long) position - windowStart + count, heights.length);
+
+		for (int i = start; i < end; i++) {
+			if (sources[i] == SOURCE_ESTIMATE) {
+				updateSlot(i, heightEstimator.estimateHeight(windowStart + i));
+			}
+		}
+	}
+
+	/**
+	 * Makes room for items inserted at the specified position. Heights of positions at or after it move along with
+	 * their items, the inserted positions start out unmeasured.
+	 *
+	 * @param position
+	 * @param count
+	 */
+	public void insert ( int position, int count ) {
+		if (count <= 0 || position < 0) {
+			return;
+		}
+
+		if (position < windowStart) {
+			// Inserted behind the window, the windowed heights just move along with their items.
+			windowStart += count;
+
+			if (heightEstimator != null) {
+				collapsedOffset += (long) count * heightEstimator.estimateAverageHeight();
+			}
+
+			return;
+		}
+
+		int slot = position - windowStart;
+		if (slot >= heights.length) {
+			return;
+		}
+
+		int lastKnownSlot = getLastKnownSlot();
+		if (lastKnownSlot >= slot) {
+			// Make room for the known heights being pushed along, rather than dropping them off the end.
+			grow((int) Math.min((long) lastKnownSlot + 1 + count, maxSize));
+		}
+
+		if (slot + count < heights.length) {
+			moveSlots(slot, slot + count, heights.length - slot - count);
+		}
+
+		estimateSlots(slot, Math.min(slot + count, heights.length));
+		rebuildTree();
+	}
+
+	/**
+	 * Removes the heights of items removed from the specified position, moving the heights of later positions back.
+	 *
+	 * @param position
+	 * @param count
+	 */
+	public void remove ( int position, int count ) {
+		if (count <= 0 || position < 0) {
+			return;
+		}
+
+		if (position < windowStart) {
+			// Part of the removed range was collapsed, take its share of the collapsed offset with it.
+			int collapsedRemoved = (int) Math.min((long) position + count, windowStart) - position;
+			collapsedOffset -= collapsedOffset * collapsedRemoved / windowStart;
+			windowStart -= collapsedRemoved;
+			count -= collapsedRemoved;
+		}
+
+		if (count <= 0) {
+			return;
+		}
+
+		int slot = Math.max(0, position - windowStart);
+		if (slot >= heights.length) {
+			return;
+		}
+
+		int removedSlots = Math.min(count, heights.length - slot);
+		moveSlots(slot + removedSlots, slot, heights.length - slot - removedSlots);
+		estimateSlots(heights.length - removedSlots, heights.length);
+		rebuildTree();
+	}
+
+	/**
+	 * Moves the heights of items moved from one position to another.
+	 *
+	 * @param fromPosition
+	 * @param toPosition
+	 * @param count
+	 */
+	public void move ( int fromPosition, int toPosition, int count ) {
+		if (count <= 0 || fromPosition == toPosition) {
+			return;
+		}
+
+		int fromSlot = fromPosition - windowStart;
+		int toSlot = toPosition - windowStart;
+
+		if (fromSlot >= 0 && toSlot >= 0) {
+			grow((int) Math.min((long) Math.max(fromSlot, toSlot) + count, maxSize));
+		}
+
+		if (fromSlot < 0 || toSlot < 0 || fromSlot + count > heights.length || toSlot + count > heights.length) {
+			// Not entirely inside the window, which can't be rearranged precisely. Keep the item count right instead.
+			remove(fromPosition, count);
+			insert(toPosition, count);
+			return;
+		}
+
+		// Rotate the affected range so the moved heights land at their new slots.
+		int start = Math.min(fromSlot, toSlot);
+		int length = Math.abs(fromSlot - toSlot) + count;
+		int distance = fromSlot < toSlot ? length - count : count;
+
+		reverse(start, start + length - 1);
+		reverse(start, start + distance - 1);
+		reverse(start + distance, start + length - 1);
+
+		rebuildTree();
+	}
+
+	/**
+	 * Marks the heights of the specified range of positions as unmeasured.
+	 *
+	 * @param position
+	 * @param count
+	 */
+	public void invalidate ( int position, int count ) {
+		int start = Math.max(0, position - windowStart);
+		int end = (int) Math.min((long) position - windowStart + count, heights.length);
+
+		if (start < end) {
+			estimateSlots(start, end);
+			rebuildTree();
+		}
+	}
+
+	/**
+	 * Copies the heights measured for up to count positions from the specified one, with -1 for positions that were
+	 * only estimated or hinted. Stops at the end of the window.
+	 *
+	 * @param position
+	 * @param count
+	 * @return
+	 */
+	public int[] getMeasuredHeights ( int position, int count ) {
+		int start = Math.max(0, position - windowStart);
+		int end = (int) Math.max(start, Math.min((long) position - windowStart + count, heights.length));
+
+		int[] measuredHeights = new int[end - start];
+		for (int i = start; i < end; i++) {
+			measuredHeights[i - start] = sources[i] == SOURCE_MEASURED ? heights[i] : -1;
+		}
+
+		return measuredHeights;
+	}
+
+	/**
+	 * Forgets every recorded height, then records heights copied earlier from getMeasuredHeights starting at the
+	 * specified position, with every position before it adding up to the specified offset.
+	 *
+	 * @param position
+	 * @param offset
+	 * 		The sum of the heights of every position before the specified one, as returned by getOffset.
+	 * @param measuredHeights
+	 */
+	public void restore ( int position, long offset, int[] measuredHeights ) {
+		int capacity = Math.min(maxSize, Math.max(DEFAULT_INITIAL_CAPACITY, measuredHeights.length));
+		if (capacity > heights.length) {
+			allocate(capacity);
+		}
+
+		windowStart = Math.max(0, position);
+		collapsedOffset = windowStart > 0 ? offset : 0;
+		estimateSlots(0, heights.length);
+
+		int restored = Math.min(measuredHeights.length, heights.length);
+		for (int i = 0; i < restored; i++) {
+			if (measuredHeights[i] >= 0) {
+				heights[i] = measuredHeights[i];
+				sources[i] = SOURCE_MEASURED;
+			}
+		}
+
+		rebuildTree();
+	}
+
+	/**
+	 * Forgets every recorded height.
+	 */
+	public void clear () {
+		windowStart = 0;
+		collapsedOffset = 0;
+		estimateSlots(0, heights.length);
+		rebuildTree();
+	}
+
+	/**
+	 * Forgets every recorded height and releases the memory used to hold them.
+	 */
+	public void release () {
+		windowStart = 0;
+		collapsedOffset = 0;
+		allocate(Math.min(DEFAULT_INITIAL_CAPACITY, maxSize));
+	}
+
+	protected long prefixSum ( int slotCount ) {
+		long sum = 0;
+
+		for (int i = slotCount; i > 0; i -= i & -i) {
+			sum += tree[i];
+		}
+
+		return sum;
+	}
+
+	protected void updateSlot ( int slot, int height ) {
+		int delta = height - heights[slot];
+		if (delta != 0) {
+			heights[slot] = height;
+
+			for (int i = slot + 1; i < tree.length; i += i & -i) {
+				tree[i] += delta;
+			}
+		}
+	}
+
+	protected void ensureInWindow ( int position ) {
+		int slot = position - windowStart;
+
+		if (slot >= heights.length) {
+			grow(slot + 1);
+		}
+
+		if (slot >= heights.length) {
+			slideForward(Math.max(slot - heights.length + 1, heights.length / 2));
+		} else if (slot < 0) {
+			slideBackward(Math.min(windowStart, Math.max(-slot, heights.length / 2)));
+		}
+	}
+
+	/**
+	 * Grows the arrays to hold at least the specified number of slots, doubling their size each time so that growing
+	 * one slot at a time stays cheap, but never beyond maxSize.
+	 *
+	 * @param minCapacity
+	 */
+	protected void grow ( int minCapacity ) {
+		if (minCapacity <= heights.length || heights.length >= maxSize) {
+			return;
+		}
+
+		int capacity = heights.length;
+		while (capacity < minCapacity && capacity < maxSize) {
+			capacity = (int) Math.min((long) capacity * 2, maxSize);
+		}
+
+		int[] grownHeights = new int[capacity];
+		byte[] grownSources = new byte[capacity];
+		System.arraycopy(heights, 0, grownHeights, 0, heights.length);
+		System.arraycopy(sources, 0, grownSources, 0, sources.length);
+
+		int previousCapacity = heights.length;
+		heights = grownHeights;
+		sources = grownSources;
+		tree = new long[capacity + 1];
+		estimateSlots(previousCapacity, capacity);
+		rebuildTree();
+	}
+
+	/**
+	 * Returns the last slot holding a measured or hinted height, or -1 if there's none.
+	 *
+	 * @return
+	 */
+	protected int getLastKnownSlot () {
+		for (int i = heights.length - 1; i >= 0; i--) {
+			if (sources[i] != SOURCE_ESTIMATE) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Moves the window ahead, folding the heights of the positions it leaves behind into the collapsed offset.
+	 *
+	 * @param shift
+	 */
+	protected void slideForward ( int shift ) {
+		if (shift >= heights.length) {
+			collapsedOffset += prefixSum(heights.length);
+
+			if (heightEstimator != null) {
+				// Positions skipped over entirely were never held at all.
+				collapsedOffset += (long) (shift - heights.length) * heightEstimator.estimateAverageHeight();
+			}
+
+			windowStart += shift;
+			estimateSlots(0, heights.length);
+		} else {
+			collapsedOffset += prefixSum(shift);
+
+			moveSlots(shift, 0, heights.length - shift);
+			windowStart += shift;
+			estimateSlots(heights.length - shift, heights.length);
+		}
+
+		rebuildTree();
+	}
+
+	/**
+	 * Moves the window back, dropping the positions furthest ahead. Positions re-entering the window only have their
+	 * collapsed sum available, so they start out at the average collapsed height until they are measured again.
+	 *
+	 * @param shift
+	 */
+	protected void slideBackward ( int shift ) {
+		int averageHeight = (int) (collapsedOffset / windowStart);
+
+		if (shift < heights.length) {
+			moveSlots(0, shift, heights.length - shift);
+		}
+
+		int filled = Math.min(shift, heights.length);
+		for (int i = 0; i < filled; i++) {
+			heights[i] = averageHeight;
+			sources[i] = SOURCE_ESTIMATE;
+		}
+
+		collapsedOffset -= (long) shift * averageHeight;
+		windowStart -= shift;
+
+		if (windowStart == 0) {
+			// Nothing is left behind the window, so whatever the average didn't account for belongs to the first slot.
+			heights[0] += (int) collapsedOffset;
+			collapsedOffset = 0;
+		}
+
+		rebuildTree();
+	}
+
+	/**
+	 * Fills the specified range of slots with estimates for their positions. Doesn't update the tree.
+	 *
+	 * @param start
+	 * @param end
+	 */
+	protected void estimateSlots ( int start, int end ) {
+		for (int i = start; i < end; i++) {
+			heights[i] = heightEstimator != null ? heightEstimator.estimateHeight(windowStart + i) : 0;
+			sources[i] = SOURCE_ESTIMATE;
+		}
+	}
+
+	protected void moveSlots ( int from, int to, int length ) {
+		System.arraycopy(heights, from, heights, to, length);
+		System.arraycopy(sources, from, sources, to, length);
+	}
+
+	protected void reverse ( int start, int end ) {
+		while (start < end) {
+			int swapHeight = heights[start];
+			heights[start] = heights[end];
+			heights[end] = swapHeight;
+
+			byte swapSource = sources[start];
+			sources[start] = sources[end];
+			sources[end] = swapSource;
+
+			start++;
+			end--;
+		}
+	}
+
+	protected void allocate ( int capacity ) {
+		heights = new int[capacity];
+		sources = new byte[capacity];
+		tree = new long[capacity + 1];
+	}
+
+	protected void rebuildTree () {
+		for (int i = 1; i < tree.length; i++) {
+			tree[i] = heights[i - 1];
+		}
+
+		for (int i = 1; i < tree.length; i++) {
+			int parent = i + (i & -i);
+			if (parent < tree.length) {
+				tree[parent] += tree[i];
+			}
+		}
+	}
+
+	/**
+	 * Supplies heights for positions that haven't been measured yet.
+	 */
+	public interface HeightEstimator {
+		/**
+		 * Returns the expected height of the specified position.
+		 *
+		 * @param position
+		 * @return
+		 */
+		public int estimateHeight ( int position );
+
+		/**
+		 * Returns the expected height of a position when it's too costly to look at each one individually.
+		 *
+		 * @return
+		 */
+		public int estimateAverageHeight ();
+	}
+}
@@ -0,0 +1,434 @@
+package com.tippingcanoe.quickreturn.library;
+
+/**
+ * The quick return logic without any views: the scroll tally, the show/hide state machine, translations that follow
+ * scrolling, snapping and revealing on idle. It's fed scroll events, idle notifications and the time, keeps the
+ * translation of every header and footer slot, and answers each input with the action for the views to carry out.
+ */
+public class QuickReturnEngine {
+	/**
+	 * Nothing to do.
+	 */
+	public static final int ACTION_NONE = 0;
+	/**
+	 * The slot translations changed and should be applied to the views.
+	 */
+	public static final int ACTION_TRANSLATE = 1;
+	/**
+	 * The quick returned views should be shown, animated.
+	 */
+	public static final int ACTION_SHOW = 2;
+	/**
+	 * The quick returned views should be hidden, animated.
+	 */
+	public static final int ACTION_HIDE = 3;
+
+	protected static final long NO_IDLE_REVEAL = -1;
+
+	protected QuickReturnSlots headerSlots = new QuickReturnSlots();
+	protected QuickReturnSlots footerSlots = new QuickReturnSlots();
+	protected ScrollTally scrollTally = new ScrollTally();
+	protected AnimationState animationState = AnimationState.SHOWN;
+
+	protected RevealListenerType revealListenerType = RevealListenerType.SCROLL;
+	protected boolean enabled = true;
+	protected boolean revealOnIdle = false;
+	protected boolean snapToIntent = true;
+	protected boolean snapToMidpoint = false;
+	protected boolean predictFlings = false;
+	protected int flingDirection = ScrollTally.DIRECTION_NONE;
+	protected float parallaxEffect = 0.8f;
+	protected int idleRevealDelay = 800;
+	protected long idleRevealTime = NO_IDLE_REVEAL;
+
+	public QuickReturnSlots getHeaderSlots () {
+		return headerSlots;
+	}
+
+	public QuickReturnSlots getFooterSlots () {
+		return footerSlots;
+	}
+
+	public ScrollTally getScrollTally () {
+		return scrollTally;
+	}
+
+	public boolean isEnabled () {
+		return enabled;
+	}
+
+	/**
+	 * Default is true.
+	 *
+	 * @param enabled
+	 */
+	public void setEnabled ( boolean enabled ) {
+		this.enabled = enabled;
+	}
+
+	public RevealListenerType getRevealListenerType () {
+		return revealListenerType;
+	}
+
+	/**
+	 * Default is SCROLL.
+	 *
+	 * @param revealListenerType
+	 */
+	public void setRevealListenerType ( RevealListenerType revealListenerType ) {
+		this.revealListenerType = revealListenerType;
+	}
+
+	public boolean isRevealOnIdle () {
+		return revealOnIdle;
+	}
+
+	/**
+	 * Default is false.
+	 *
+	 * @param revealOnIdle
+	 */
+	public void setRevealOnIdle ( boolean revealOnIdle ) {
+		this.revealOnIdle = revealOnIdle;
+
+		if (!revealOnIdle) {
+			idleRevealTime = NO_IDLE_REVEAL;
+		}
+	}
+
+	public boolean isSnapToIntent () {
+		return snapToIntent;
+	}
+
+	/**
+	 * Default is true.
+	 *
+	 * @param snapToIntent
+	 */
+	public void setSnapToIntent ( boolean snapToIntent ) {
+		this.snapToIntent = snapToIntent;
+	}
+
+	public boolean isSnapToMidpoint () {
+		return snapToMidpoint;
+	}
+
+	/**
+	 * Default is false.
+	 *
+	 * @param snapToMidpoint
+	 */
+	public void setSnapToMidpoint ( boolean snapToMidpoint ) {
+		this.snapToMidpoint = snapToMidpoint;
+	}
+
+	public boolean isPredictingFlings () {
+		return predictFlings;
+	}
+
+	/**
+	 * Sets whether flings should show or hide the views as soon as they start, when they're predicted to scroll far
+	 * enough, rather than when they come to rest. Scrolling in the direction of the fling is then not followed.
+	 *
+	 * Default is false.
+	 *
+	 * @param predictFlings
+	 */
+	public void setPredictFlings ( boolean predictFlings ) {
+		this.predictFlings = predictFlings;
+	}
+
+	public float getParallaxEffect () {
+		return parallaxEffect;
+	}
+
+	/**
+	 * Default is 0.8f.
+	 *
+	 * @param parallaxEffect
+	 */
+	public void setParallaxEffect ( float parallaxEffect ) {
+		this.parallaxEffect = parallaxEffect;
+	}
+
+	public int getIdleRevealDelay () {
+		return idleRevealDelay;
+	}
+
+	/**
+	 * Default is 800ms.
+	 *
+	 * @param idleRevealDelay
+	 */
+	public void setIdleRevealDelay ( int idleRevealDelay ) {
+		this.idleRevealDelay = idleRevealDelay;
+	}
+
+	public AnimationState getAnimationState () {
+		return animationState;
+	}
+
+	public void setAnimationState ( AnimationState animationState ) {
+		this.animationState = animationState;
+	}
+
+	/**
+	 * Whether the views are at rest, so that a transition may start or scrolling may move them.
+	 *
+	 * @return
+	 */
+	public boolean isSettled () {
+		return animationState == AnimationState.SHOWN || animationState == AnimationState.HIDDEN;
+	}
+
+	/**
+	 * Moves the state machine to the end of the transition in the specified direction.
+	 *
+	 * @param fromDirection
+	 * 		SHOWING or HIDING.
+	 */
+	public void completeTransition ( AnimationState fromDirection ) {
+		if (fromDirection == AnimationState.SHOWING) {
+			animationState = AnimationState.SHOWN;
+		} else {
+			animationState = AnimationState.HIDDEN;
+		}
+	}
+
+	/**
+	 * Returns the time, on the clock passed to onScrollIdle, at which the views should be revealed, or -1 if no reveal
+	 * is pending.
+	 *
+	 * @return
+	 */
+	public long getIdleRevealTime () {
+		return idleRevealTime;
+	}
+
+	/**
+	 * Handles scrolling from oldY to y.
+	 *
+	 * @param y
+	 * @param oldY
+	 * @return One of the ACTION constants.
+	 */
+	public int onScrollChanged ( int y, int oldY ) {
+		if (flingDirection != ScrollTally.DIRECTION_NONE) {
+			if (flingDirection == (y > oldY ? ScrollTally.DIRECTION_DOWN : ScrollTally.DIRECTION_UP)) {
+				// The views were already sent where this fling leads.
+				scrollTally.add(y, oldY);
+				return ACTION_NONE;
+			}
+
+			flingDirection = ScrollTally.DIRECTION_NONE;
+		}
+
+		if (!enabled || !scrollTally.add(y, oldY)) {
+			return ACTION_NONE;
+		}
+
+		idleRevealTime = NO_IDLE_REVEAL;
+
+		if (revealListenerType == RevealListenerType.SCROLL) {
+			return translateSlots(y, oldY) ? ACTION_TRANSLATE : ACTION_NONE;
+		} else if (revealListenerType == RevealListenerType.ANIMATED) {
+			// Already where this direction leads, so there's nothing to animate.
+			if (y > oldY && animationState != AnimationState.HIDDEN) {
+				return ACTION_HIDE;
+			} else if (y < oldY && animationState != AnimationState.SHOWN) {
+				return ACTION_SHOW;
+			}
+		}
+
+		return ACTION_NONE;
+	}
+
+	/**
+	 * Handles a fling starting, deciding from how far it's predicted to scroll whether the views should be shown or
+	 * hidden without waiting for it to come to rest.
+	 *
+	 * @param distance
+	 * 		The distance the fling is predicted to scroll, positive when moving further into the content.
+	 * @return One of the ACTION constants.
+	 */
+	public int onFling ( int distance ) {
+		if (!enabled || !predictFlings || !isSettled()) {
+			return ACTION_NONE;
+		}
+
+		if (distance >= scrollTally.getMinDifferenceBeforeHide()) {
+			flingDirection = ScrollTally.DIRECTION_DOWN;
+			idleRevealTime = NO_IDLE_REVEAL;
+			return ACTION_HIDE;
+		} else if (-distance >= scrollTally.getMinDifferenceBeforeShow()) {
+			flingDirection = ScrollTally.DIRECTION_UP;
+			idleRevealTime = NO_IDLE_REVEAL;
+			return ACTION_SHOW;
+		}
+
+		return ACTION_NONE;
+	}
+
+	/**
+	 * Handles scrolling coming to rest.
+	 *
+	 * @param now
+	 * 		The current time in milliseconds, on any clock also used for onTick.
+	 * @return One of the ACTION constants.
+	 */
+	public int onScrollIdle ( long now ) {
+		if (!enabled) {
+			return ACTION_NONE;
+		}
+
+		int action = ACTION_NONE;
+		scrollTally.reset();
+		flingDirection = ScrollTally.DIRECTION_NONE;
+
+		if (revealListenerType == RevealListenerType.SCROLL) {
+			if (snapToIntent) {
+				action = getIntentAction();
+			} else if (snapToMidpoint) {
+				action = getMidpointAction();
+			}
+		}
+
+		scrollTally.clearLastSignificantDirection();
+
+		if (revealOnIdle) {
+			idleRevealTime = now + idleRevealDelay;
+		}
+
+		return action;
+	}
+
+	/**
+	 * Lets the engine act on the passing of time.
+	 *
+	 * @param now
+	 * 		The current time in milliseconds, on the clock passed to onScrollIdle.
+	 * @return One of the ACTION constants.
+	 */
+	public int onTick ( long now ) {
+		if (idleRevealTime != NO_IDLE_REVEAL && now >= idleRevealTime) {
+			idleRevealTime = NO_IDLE_REVEAL;
+			return ACTION_SHOW;
+		}
+
+		return ACTION_NONE;
+	}
+
+	/**
+	 * Moves the quick returning slots along with scrolling from oldY to y, each one further than the one before so that
+	 * they tuck in behind each other.
+	 *
+	 * @param y
+	 * @param oldY
+	 * @return Whether the slots were moved.
+	 */
+	protected boolean translateSlots ( int y, int oldY ) {
+		if (!isSettled()) {
+			return false;
+		}
+
+		float diff = oldY - y;
+		for (int i = 0; i < headerSlots.size(); i++) {
+			if (isQuickReturning(headerSlots, i)) {
+				int height = headerSlots.getHeight(i);
+				int hideableOffset = headerSlots.getHideableOffset(i);
+
+				if (hideableOffset > 0) {
+					diff *= 1.0f + ((float) height / (float) hideableOffset);
+				}
+
+				translateSlot(headerSlots, i, diff, -1 * hideableOffset, -1 * headerSlots.getPermanentlyHiddenOffset(i));
+			}
+		}
+
+		diff = y - oldY;
+		for (int i = 0; i < footerSlots.size(); i++) {
+			if (isQuickReturning(footerSlots, i)) {
+				int height = footerSlots.getHeight(i);
+				int hideableOffset = footerSlots.getHideableOffset(i);
+				int hideableOffsetBefore = hideableOffset - height;
+
+				if (hideableOffsetBefore > 0) {
+					diff *= 1.0f + ((float) height / (float) hideableOffsetBefore);
+				}
+
+				translateSlot(footerSlots, i, diff, footerSlots.getPermanentlyHiddenOffset(i), hideableOffset);
+			}
+		}
+
+		return true;
+	}
+
+	protected void translateSlot ( QuickReturnSlots slots, int index, float diff, int min, int max ) {
+		slots.setTranslation(index, Math.min(Math.max(min, slots.getTranslation(index) + (diff * parallaxEffect)), max));
+	}
+
+	protected int getIntentAction () {
+		int lastSignificantScrollDirection = scrollTally.getLastSignificantDirection();
+
+		if (lastSignificantScrollDirection == ScrollTally.DIRECTION_DOWN) {
+			return ACTION_HIDE;
+		} else if (lastSignificantScrollDirection == ScrollTally.DIRECTION_UP) {
+			return ACTION_SHOW;
+		}
+
+		return ACTION_NONE;
+	}
+
+	/**
+	 * Decides on showing or hiding from the first quick returning slot that's partly hidden: it's shown unless more
+	 * than three quarters of it is out of view.
+	 *
+	 * @return
+	 */
+	protected int getMidpointAction () {
+		int action = getMidpointAction(headerSlots);
+		return action != ACTION_NONE ? action : getMidpointAction(footerSlots);
+	}
+
+	protected int getMidpointAction ( QuickReturnSlots slots ) {
+		for (int i = 0; i < slots.size(); i++) {
+			if (isQuickReturning(slots, i)) {
+				float height = slots.getHeight(i);
+				float offset = Math.abs(slots.getTranslation(i));
+				int permanentlyHiddenOffset = slots.getPermanentlyHiddenOffset(i);
+
+				if (offset != permanentlyHiddenOffset) {
+					if ((height * 0.75f) > (offset - permanentlyHiddenOffset)) {
+						return ACTION_SHOW;
+					} else {
+						return ACTION_HIDE;
+					}
+				}
+			}
+		}
+
+		return ACTION_NONE;
+	}
+
+	/**
+	 * Whether the slot moves with scrolling: it quick returns and isn't permanently hidden.
+	 *
+	 * @param slots
+	 * @param index
+	 * @return
+	 */
+	public static boolean isQuickReturning ( QuickReturnSlots slots, int index ) {
+		return (slots.getFlags(index) & (QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN | QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN)) == QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN;
+	}
+
+	/**
+	 * Whether the slot is moved out of view when hiding: it either quick returns or is permanently hidden.
+	 *
+	 * @param slots
+	 * @param index
+	 * @return
+	 */
+	public static boolean isHideable ( QuickReturnSlots slots, int index ) {
+		return (slots.getFlags(index) & (QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN | QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN)) != 0;
+	}
+}
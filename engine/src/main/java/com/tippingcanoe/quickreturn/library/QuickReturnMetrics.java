@@ -0,0 +1,212 @@
+package com.tippingcanoe.quickreturn.library;
+
+/**
+ * Counters describing the work done for quick returning since they were last reset. Kept as plain primitives, updated
+ * from the main thread only, so they're cheap enough to leave on in release builds.
+ */
+public class QuickReturnMetrics {
+	/**
+	 * Upper bounds, exclusive, of the duration buckets in nanoseconds. Durations at or above the last bound fall in an
+	 * extra, final bucket.
+	 */
+	public static final long[] DURATION_BUCKET_LIMITS = {
+			50000L, 100000L, 250000L, 500000L, 1000000L, 2000000L, 4000000L, 8000000L, 16000000L
+	};
+
+	protected long scrollEventsReceived;
+	protected long scrollEventsHandled;
+	protected long scrollHandlingTime;
+	protected long[] scrollHandlingDurations = new long[DURATION_BUCKET_LIMITS.length + 1];
+	protected long setupViewCount;
+	protected long setupViewTime;
+	protected long[] setupViewDurations = new long[DURATION_BUCKET_LIMITS.length + 1];
+	protected long heightRecalculations;
+	protected long animationsStarted;
+	protected long animationsEnded;
+	protected long animationsCancelled;
+	protected int heightCacheSize;
+	protected long heightCacheLookups;
+	protected long heightCacheHits;
+
+	/**
+	 * Counts a scroll event coming from the observed view, handled right away or not.
+	 */
+	public void onScrollEventReceived () {
+		scrollEventsReceived++;
+	}
+
+	/**
+	 * Counts a pass of scroll handling, which may cover several coalesced events.
+	 *
+	 * @param duration
+	 * 		In nanoseconds.
+	 */
+	public void onScrollEventHandled ( long duration ) {
+		scrollEventsHandled++;
+		scrollHandlingTime += duration;
+		scrollHandlingDurations[getDurationBucket(duration)]++;
+	}
+
+	/**
+	 * @param duration
+	 * 		In nanoseconds.
+	 */
+	public void onSetupView ( long duration ) {
+		setupViewCount++;
+		setupViewTime += duration;
+		setupViewDurations[getDurationBucket(duration)]++;
+	}
+
+	public void onHeightsRecalculated () {
+		heightRecalculations++;
+	}
+
+	public void onAnimationStarted () {
+		animationsStarted++;
+	}
+
+	/**
+	 * Counts an animation ending, whether it completed or was cancelled.
+	 */
+	public void onAnimationEnded () {
+		animationsEnded++;
+	}
+
+	public void onAnimationCancelled () {
+		animationsCancelled++;
+	}
+
+	/**
+	 * @param size
+	 * 		The number of heights held.
+	 * @param lookups
+	 * 		The number of heights looked up.
+	 * @param hits
+	 * 		The number of those that were already known.
+	 */
+	public void setHeightCacheStats ( int size, long lookups, long hits ) {
+		heightCacheSize = size;
+		heightCacheLookups = lookups;
+		heightCacheHits = hits;
+	}
+
+	public long getScrollEventsReceived () {
+		return scrollEventsReceived;
+	}
+
+	public long getScrollEventsHandled () {
+		return scrollEventsHandled;
+	}
+
+	/**
+	 * Returns how many scroll events were folded into others rather than handled on their own.
+	 *
+	 * @return
+	 */
+	public long getScrollEventsCoalesced () {
+		return Math.max(0, scrollEventsReceived - scrollEventsHandled);
+	}
+
+	/**
+	 * @return The total time spent handling scroll events, in nanoseconds.
+	 */
+	public long getScrollHandlingTime () {
+		return scrollHandlingTime;
+	}
+
+	/**
+	 * Returns the number of scroll handling passes that fell in the duration bucket at each index.
+	 *
+	 * @return
+	 * @see #DURATION_BUCKET_LIMITS
+	 */
+	public long[] getScrollHandlingDurations () {
+		return scrollHandlingDurations;
+	}
+
+	public long getSetupViewCount () {
+		return setupViewCount;
+	}
+
+	/**
+	 * @return The total time spent setting up the views, in nanoseconds.
+	 */
+	public long getSetupViewTime () {
+		return setupViewTime;
+	}
+
+	/**
+	 * Returns the number of view setups that fell in the duration bucket at each index.
+	 *
+	 * @return
+	 * @see #DURATION_BUCKET_LIMITS
+	 */
+	public long[] getSetupViewDurations () {
+		return setupViewDurations;
+	}
+
+	public long getHeightRecalculations () {
+		return heightRecalculations;
+	}
+
+	public long getAnimationsStarted () {
+		return animationsStarted;
+	}
+
+	public long getAnimationsCompleted () {
+		return Math.max(0, animationsEnded - animationsCancelled);
+	}
+
+	public long getAnimationsCancelled () {
+		return animationsCancelled;
+	}
+
+	public int getHeightCacheSize () {
+		return heightCacheSize;
+	}
+
+	public long getHeightCacheLookups () {
+		return heightCacheLookups;
+	}
+
+	public long getHeightCacheHits () {
+		return heightCacheHits;
+	}
+
+	/**
+	 * @return The share of height lookups that were already known, or 0 if there were none.
+	 */
+	public float getHeightCacheHitRate () {
+		return heightCacheLookups > 0 ? (float) heightCacheHits / heightCacheLookups : 0f;
+	}
+
+	public void reset () {
+		scrollEventsReceived = 0;
+		scrollEventsHandled = 0;
+		scrollHandlingTime = 0;
+		setupViewCount = 0;
+		setupViewTime = 0;
+		heightRecalculations = 0;
+		animationsStarted = 0;
+		animationsEnded = 0;
+		animationsCancelled = 0;
+		heightCacheSize = 0;
+		heightCacheLookups = 0;
+		heightCacheHits = 0;
+
+		for (int i = 0; i < scrollHandlingDurations.length; i++) {
+			scrollHandlingDurations[i] = 0;
+			setupViewDurations[i] = 0;
+		}
+	}
+
+	protected static int getDurationBucket ( long duration ) {
+		int bucket = 0;
+
+		while (bucket < DURATION_BUCKET_LIMITS.length && duration >= DURATION_BUCKET_LIMITS[bucket]) {
+			bucket++;
+		}
+
+		return bucket;
+	}
+}
@@ -0,0 +1,166 @@
+package com.tippingcanoe.quickreturn.library;
+
+/**
+ * Compact table of the attached header or footer views, one slot per view, held in primitive arrays. Besides the flags,
+ * height and translation of each slot it keeps running sums of heights, updated only from the first slot that changed,
+ * so that per frame work never has to add them up again.
+ */
+public class QuickReturnSlots {
+	public static final int FLAG_SHOULD_QUICK_RETURN = 1;
+	public static final int FLAG_RENDER_OVER_LIST = 1 << 1;
+	public static final int FLAG_PERMANENTLY_HIDDEN = 1 << 2;
+
+	protected static final int DEFAULT_CAPACITY = 4;
+
+	protected int size = 0;
+	protected int[] flags = new int[DEFAULT_CAPACITY];
+	protected int[] heights = new int[DEFAULT_CAPACITY];
+	protected float[] translations = new float[DEFAULT_CAPACITY];
+	protected int[] hideableOffsets = new int[DEFAULT_CAPACITY];
+	protected int[] permanentlyHiddenOffsets = new int[DEFAULT_CAPACITY];
+	protected int firstStaleOffset = 0;
+
+	public int size () {
+		return size;
+	}
+
+	/**
+	 * Appends a slot with the specified flags and returns its index.
+	 *
+	 * @param slotFlags
+	 * @return
+	 */
+	public int add ( int slotFlags ) {
+		if (size == flags.length) {
+			int capacity = flags.length * 2;
+			flags = grow(flags, capacity);
+			heights = grow(heights, capacity);
+			float[] grownTranslations = new float[capacity];
+			System.arraycopy(translations, 0, grownTranslations, 0, translations.length);
+			translations = grownTranslations;
+			hideableOffsets = grow(hideableOffsets, capacity);
+			permanentlyHiddenOffsets = grow(permanentlyHiddenOffsets, capacity);
+		}
+
+		flags[size] = slotFlags;
+		heights[size] = 0;
+		translations[size] = 0;
+		markStale(size);
+
+		return size++;
+	}
+
+	/**
+	 * Removes the slot at the specified index, moving the following slots back.
+	 *
+	 * @param index
+	 */
+	public void remove ( int index ) {
+		if (index < 0 || index >= size) {
+			return;
+		}
+
+		int moved = size - index - 1;
+		System.arraycopy(flags, index + 1, flags, index, moved);
+		System.arraycopy(heights, index + 1, heights, index, moved);
+		System.arraycopy(translations, index + 1, translations, index, moved);
+
+		size--;
+		markStale(index);
+	}
+
+	public int getFlags ( int index ) {
+		return flags[index];
+	}
+
+	public boolean hasFlag ( int index, int flag ) {
+		return (flags[index] & flag) != 0;
+	}
+
+	public void setFlag ( int index, int flag, boolean set ) {
+		int updatedFlags = set ? flags[index] | flag : flags[index] & ~flag;
+
+		if (updatedFlags != flags[index]) {
+			flags[index] = updatedFlags;
+			markStale(index);
+		}
+	}
+
+	public int getHeight ( int index ) {
+		return heights[index];
+	}
+
+	public void setHeight ( int index, int height ) {
+		if (heights[index] != height) {
+			heights[index] = height;
+			markStale(index);
+		}
+	}
+
+	public float getTranslation ( int index ) {
+		return translations[index];
+	}
+
+	public void setTranslation ( int index, float translation ) {
+		translations[index] = translation;
+	}
+
+	/**
+	 * Returns the sum of the heights of every slot up to and including the specified one that either quick returns or
+	 * is permanently hidden. That's how far the slot has to move to be hidden.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public int getHideableOffset ( int index ) {
+		updateOffsets();
+		return hideableOffsets[index];
+	}
+
+	/**
+	 * Returns the sum of the heights of every permanently hidden slot up to and including the specified one. That's how
+	 * far the slot has to move to be shown without covering for a permanently hidden slot.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public int getPermanentlyHiddenOffset ( int index ) {
+		updateOffsets();
+		return permanentlyHiddenOffsets[index];
+	}
+
+	protected void markStale ( int index ) {
+		if (index < firstStaleOffset) {
+			firstStaleOffset = index;
+		}
+	}
+
+	protected void updateOffsets () {
+		if (firstStaleOffset >= size) {
+			return;
+		}
+
+		int hideableOffset = firstStaleOffset > 0 ? hideableOffsets[firstStaleOffset - 1] : 0;
+		int permanentlyHiddenOffset = firstStaleOffset > 0 ? permanentlyHiddenOffsets[firstStaleOffset - 1] : 0;
+
+		for (int i = firstStaleOffset; i < size; i++) {
+			if ((flags[i] & FLAG_PERMANENTLY_HIDDEN) != 0) {
+				hideableOffset += heights[i];
+				permanentlyHiddenOffset += heights[i];
+			} else if ((flags[i] & FLAG_SHOULD_QUICK_RETURN) != 0) {
+				hideableOffset += heights[i];
+			}
+
+			hideableOffsets[i] = hideableOffset;
+			permanentlyHiddenOffsets[i] = permanentlyHiddenOffset;
+		}
+
+		firstStaleOffset = size;
+	}
+
+	protected static int[] grow ( int[] array, int capacity ) {
+		int[] grown = new int[capacity];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+}
@@ -0,0 +1,119 @@
+package com.tippingcanoe.quickreturn.library;
+
+/**
+ * Accumulates scrolling in one direction until it's far enough to be worth reacting to. Holds nothing but primitives so
+ * it can be fed every scroll event without allocating.
+ */
+public class ScrollTally {
+	public static final int DIRECTION_NONE = 0;
+	public static final int DIRECTION_UP = 1;
+	public static final int DIRECTION_DOWN = -1;
+
+	protected int minDifferenceBeforeHide = 300;
+	protected int minDifferenceBeforeShow = 100;
+	protected int runningTally = 0;
+	protected int lastSignificantDirection = DIRECTION_NONE;
+
+	/**
+	 * Default is 300.
+	 *
+	 * @param minDifferenceBeforeHide
+	 */
+	public void setMinDifferenceBeforeHide ( int minDifferenceBeforeHide ) {
+		this.minDifferenceBeforeHide = minDifferenceBeforeHide;
+	}
+
+	/**
+	 * Default is 100.
+	 *
+	 * @param minDifferenceBeforeShow
+	 */
+	public void setMinDifferenceBeforeShow ( int minDifferenceBeforeShow ) {
+		this.minDifferenceBeforeShow = minDifferenceBeforeShow;
+	}
+
+	public int getMinDifferenceBeforeHide () {
+		return minDifferenceBeforeHide;
+	}
+
+	public int getMinDifferenceBeforeShow () {
+		return minDifferenceBeforeShow;
+	}
+
+	/**
+	 * Adds the movement from oldY to y to the tally, restarting it if the direction changed.
+	 *
+	 * @param y
+	 * @param oldY
+	 * @return Whether the tally has reached the distance required for its direction.
+	 */
+	public boolean add ( int y, int oldY ) {
+		int diff = oldY - y;
+
+		if (diff > 0) {
+			// Scrolled up.
+			if (runningTally < 0) {
+				runningTally = 0;
+			}
+
+			runningTally += diff;
+
+			if (runningTally >= minDifferenceBeforeShow) {
+				lastSignificantDirection = DIRECTION_UP;
+				return true;
+			}
+		} else if (diff < 0) {
+			// Scrolled down.
+			if (runningTally > 0) {
+				runningTally = 0;
+			}
+
+			runningTally += diff;
+
+			if (Math.abs(runningTally) >= minDifferenceBeforeHide) {
+				lastSignificantDirection = DIRECTION_DOWN;
+				return true;
+			}
+		} else {
+			runningTally = 0;
+		}
+
+		return false;
+	}
+
+	public int getRunningTally () {
+		return runningTally;
+	}
+
+	/**
+	 * Returns DIRECTION_UP or DIRECTION_DOWN for the direction that last reached its required distance, or
+	 * DIRECTION_NONE if neither has since the last call to clearLastSignificantDirection.
+	 *
+	 * @return
+	 */
+	public int getLastSignificantDirection () {
+		return lastSignificantDirection;
+	}
+
+	public void clearLastSignificantDirection () {
+		lastSignificantDirection = DIRECTION_NONE;
+	}
+
+	/**
+	 * Puts back a tally saved earlier from getRunningTally and getLastSignificantDirection.
+	 *
+	 * @param runningTally
+	 * @param lastSignificantDirection
+	 */
+	public void restore ( int runningTally, int lastSignificantDirection ) {
+		this.runningTally = runningTally;
+		this.lastSignificantDirection = lastSignificantDirection;
+	}
+
+	/**
+	 * Restarts the tally without forgetting the last significant direction.
+	 */
+	public void reset () {
+		runningTally = 0;
+	}
+}
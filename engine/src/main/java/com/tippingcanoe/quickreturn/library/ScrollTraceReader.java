@@ -0,0 +1,280 @@
+package com.tippingcanoe.quickreturn.library;
+
+/**
+ * Reads back a trace written by ScrollTraceRecorder one record at a time. The fields of the current record are
+ * available from the getters matching its type, and configuration and sync records can be applied to an engine.
+ */
+public class ScrollTraceReader {
+	protected byte[] trace;
+	protected int position;
+
+	protected int type;
+	protected long time;
+	protected int y;
+	protected int oldY;
+	protected int scrollState;
+	protected int distance;
+
+	protected int configFlags;
+	protected int revealListenerType;
+	protected float parallaxEffect;
+	protected int idleRevealDelay;
+	protected int minDifferenceBeforeHide;
+	protected int minDifferenceBeforeShow;
+	protected int headerSlotCount;
+	protected int[] headerFlags = new int[0];
+	protected int[] headerHeights = new int[0];
+	protected int footerSlotCount;
+	protected int[] footerFlags = new int[0];
+	protected int[] footerHeights = new int[0];
+
+	protected int animationState;
+	protected int runningTally;
+	protected int lastSignificantDirection;
+	protected int headerTranslationCount;
+	protected float[] headerTranslations = new float[0];
+	protected int footerTranslationCount;
+	protected float[] footerTranslations = new float[0];
+
+	/**
+	 * @param trace
+	 * @throws IllegalArgumentException
+	 * 		If it isn't a trace of a version that can be read.
+	 */
+	public ScrollTraceReader ( byte[] trace ) {
+		this.trace = trace;
+
+		if (trace.length < 5 || readFixedInt() != ScrollTraceRecorder.MAGIC) {
+			throw new IllegalArgumentException("Not a scroll trace.");
+		}
+
+		int version = readByte();
+		if (version != ScrollTraceRecorder.VERSION) {
+			throw new IllegalArgumentException("Unsupported scroll trace version " + version + ".");
+		}
+	}
+
+	/**
+	 * Moves on to the next record.
+	 *
+	 * @return Whether there was one.
+	 * @throws IllegalArgumentException
+	 * 		If the trace is corrupt.
+	 */
+	public boolean next () {
+		if (position >= trace.length) {
+			return false;
+		}
+
+		type = readByte();
+
+		switch (type) {
+			case ScrollTraceRecorder.RECORD_CONFIG:
+				readConfig();
+				break;
+			case ScrollTraceRecorder.RECORD_SYNC:
+				readSync();
+				break;
+			case ScrollTraceRecorder.RECORD_SCROLL:
+				readTime();
+				int lastY = y;
+				y = (int) (lastY + unZigZag(readVarLong()));
+				oldY = (int) (lastY + unZigZag(readVarLong()));
+				break;
+			case ScrollTraceRecorder.RECORD_SCROLL_STATE:
+				readTime();
+				scrollState = (int) unZigZag(readVarLong());
+				break;
+			case ScrollTraceRecorder.RECORD_FLING:
+				readTime();
+				distance = (int) unZigZag(readVarLong());
+				break;
+			case ScrollTraceRecorder.RECORD_TICK:
+				readTime();
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown record type " + type + " at " + (position - 1) + ".");
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the type of the current record, one of the RECORD constants of ScrollTraceRecorder.
+	 *
+	 * @return
+	 */
+	public int getType () {
+		return type;
+	}
+
+	/**
+	 * Returns the time of the current event record, or of the last one before a configuration or sync record.
+	 *
+	 * @return
+	 */
+	public long getTime () {
+		return time;
+	}
+
+	public int getY () {
+		return y;
+	}
+
+	public int getOldY () {
+		return oldY;
+	}
+
+	public int getScrollState () {
+		return scrollState;
+	}
+
+	public int getDistance () {
+		return distance;
+	}
+
+	/**
+	 * Applies the current configuration or sync record to the specified engine, adding or removing slots to match. Does
+	 * nothing for other records.
+	 *
+	 * @param engine
+	 */
+	public void applyTo ( QuickReturnEngine engine ) {
+		if (type == ScrollTraceRecorder.RECORD_CONFIG) {
+			engine.setEnabled((configFlags & ScrollTraceRecorder.CONFIG_ENABLED) != 0);
+			engine.setRevealOnIdle((configFlags & ScrollTraceRecorder.CONFIG_REVEAL_ON_IDLE) != 0);
+			engine.setSnapToIntent((configFlags & ScrollTraceRecorder.CONFIG_SNAP_TO_INTENT) != 0);
+			engine.setSnapToMidpoint((configFlags & ScrollTraceRecorder.CONFIG_SNAP_TO_MIDPOINT) != 0);
+			engine.setPredictFlings((configFlags & ScrollTraceRecorder.CONFIG_PREDICT_FLINGS) != 0);
+			engine.setRevealListenerType(RevealListenerType.values()[revealListenerType]);
+			engine.setParallaxEffect(parallaxEffect);
+			engine.setIdleRevealDelay(idleRevealDelay);
+			engine.getScrollTally().setMinDifferenceBeforeHide(minDifferenceBeforeHide);
+			engine.getScrollTally().setMinDifferenceBeforeShow(minDifferenceBeforeShow);
+
+			applySlotLayout(engine.getHeaderSlots(), headerSlotCount, headerFlags, headerHeights);
+			applySlotLayout(engine.getFooterSlots(), footerSlotCount, footerFlags, footerHeights);
+		} else if (type == ScrollTraceRecorder.RECORD_SYNC) {
+			engine.setAnimationState(AnimationState.values()[animationState]);
+			engine.getScrollTally().restore(runningTally, lastSignificantDirection);
+
+			applyTranslations(engine.getHeaderSlots(), headerTranslationCount, headerTranslations);
+			applyTranslations(engine.getFooterSlots(), footerTranslationCount, footerTranslations);
+		}
+	}
+
+	protected static void applySlotLayout ( QuickReturnSlots slots, int count, int[] flags, int[] heights ) {
+		while (slots.size() > count) {
+			slots.remove(slots.size() - 1);
+		}
+
+		while (slots.size() < count) {
+			slots.add(0);
+		}
+
+		for (int i = 0; i < count; i++) {
+			slots.setFlag(i, QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, (flags[i] & QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN) != 0);
+			slots.setFlag(i, QuickReturnSlots.FLAG_RENDER_OVER_LIST, (flags[i] & QuickReturnSlots.FLAG_RENDER_OVER_LIST) != 0);
+			slots.setFlag(i, QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN, (flags[i] & QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN) != 0);
+			slots.setHeight(i, heights[i]);
+		}
+	}
+
+	protected static void applyTranslations ( QuickReturnSlots slots, int count, float[] translations ) {
+		int applied = Math.min(count, slots.size());
+		for (int i = 0; i < applied; i++) {
+			slots.setTranslation(i, translations[i]);
+		}
+	}
+
+	protected void readTime () {
+		time += unZigZag(readVarLong());
+	}
+
+	protected void readConfig () {
+		configFlags = (int) readVarLong();
+		revealListenerType = (int) readVarLong();
+		parallaxEffect = Float.intBitsToFloat(readFixedInt());
+		idleRevealDelay = (int) unZigZag(readVarLong());
+		minDifferenceBeforeHide = (int) unZigZag(readVarLong());
+		minDifferenceBeforeShow = (int) unZigZag(readVarLong());
+
+		headerSlotCount = (int) readVarLong();
+		if (headerFlags.length < headerSlotCount) {
+			headerFlags = new int[headerSlotCount];
+			headerHeights = new int[headerSlotCount];
+		}
+
+		readSlotLayout(headerSlotCount, headerFlags, headerHeights);
+
+		footerSlotCount = (int) readVarLong();
+		if (footerFlags.length < footerSlotCount) {
+			footerFlags = new int[footerSlotCount];
+			footerHeights = new int[footerSlotCount];
+		}
+
+		readSlotLayout(footerSlotCount, footerFlags, footerHeights);
+	}
+
+	protected void readSlotLayout ( int count, int[] flags, int[] heights ) {
+		for (int i = 0; i < count; i++) {
+			flags[i] = (int) readVarLong();
+			heights[i] = (int) unZigZag(readVarLong());
+		}
+	}
+
+	protected void readSync () {
+		animationState = (int) readVarLong();
+		runningTally = (int) unZigZag(readVarLong());
+		lastSignificantDirection = (int) unZigZag(readVarLong());
+
+		headerTranslationCount = (int) readVarLong();
+		if (headerTranslations.length < headerTranslationCount) {
+			headerTranslations = new float[headerTranslationCount];
+		}
+
+		for (int i = 0; i < headerTranslationCount; i++) {
+			headerTranslations[i] = Float.intBitsToFloat(readFixedInt());
+		}
+
+		footerTranslationCount = (int) readVarLong();
+		if (footerTranslations.length < footerTranslationCount) {
+			footerTranslations = new float[footerTranslationCount];
+		}
+
+		for (int i = 0; i < footerTranslationCount; i++) {
+			footerTranslations[i] = Float.intBitsToFloat(readFixedInt());
+		}
+	}
+
+	protected static long unZigZag ( long value ) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	protected long readVarLong () {
+		long value = 0;
+
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = readByte();
+			value |= (long) (b & 0x7F) << shift;
+
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+
+		throw new IllegalArgumentException("Malformed number at " + position + ".");
+	}
+
+	protected int readFixedInt () {
+		return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+	}
+
+	protected int readByte () {
+		if (position >= trace.length) {
+			throw new IllegalArgumentException("Scroll trace ends in the middle of a record.");
+		}
+
+		return trace[position++] & 0xFF;
+	}
+}
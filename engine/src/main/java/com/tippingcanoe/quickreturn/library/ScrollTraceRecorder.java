@@ -0,0 +1,464 @@
+package com.tippingcanoe.quickreturn.library;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Records the input handed to a QuickReturnEngine as a compact binary trace, to be replayed later with
+ * ScrollTraceReplay. Scroll events, scroll state changes, flings and ticks are recorded as they reach the engine. The
+ * engine's configuration and slots are recorded whenever they changed. The animation state, translations and scroll
+ * tally are recorded whenever something other than the engine changed them since the last event, such as an
+ * animation, so that a replay sees exactly what the engine saw.
+ *
+ * Records are kept in memory as variable length deltas, usually 3 or 4 bytes for a scroll event, so recording is
+ * cheap enough to leave on in the field. Recording stops once the maximum size is reached.
+ *
+ * The trace starts with MAGIC and VERSION, followed by records that each start with their RECORD type and the time
+ * since the previous record as a variable length number.
+ */
+public class ScrollTraceRecorder {
+	public static final int MAGIC = 0x51525452;
+	public static final int VERSION = 1;
+
+	/**
+	 * y and oldY, both relative to the previous y.
+	 */
+	public static final int RECORD_SCROLL = 1;
+	/**
+	 * The new scroll state.
+	 */
+	public static final int RECORD_SCROLL_STATE = 2;
+	/**
+	 * The distance a fling is predicted to scroll.
+	 */
+	public static final int RECORD_FLING = 3;
+	/**
+	 * Time passing, for revealing on idle.
+	 */
+	public static final int RECORD_TICK = 4;
+	/**
+	 * The engine's settings, followed by the flags and height of every header and footer slot.
+	 */
+	public static final int RECORD_CONFIG = 5;
+	/**
+	 * The animation state, the scroll tally and the translation of every header and footer slot.
+	 */
+	public static final int RECORD_SYNC = 6;
+
+	/**
+	 * The scroll state of a view at rest, as used by AbsListView, RecyclerView and ObservableScrollView alike.
+	 */
+	public static final int SCROLL_STATE_IDLE = 0;
+
+	public static final int DEFAULT_MAX_SIZE = 1024 * 1024;
+
+	protected static final int CONFIG_ENABLED = 1;
+	protected static final int CONFIG_REVEAL_ON_IDLE = 1 << 1;
+	protected static final int CONFIG_SNAP_TO_INTENT = 1 << 2;
+	protected static final int CONFIG_SNAP_TO_MIDPOINT = 1 << 3;
+	protected static final int CONFIG_PREDICT_FLINGS = 1 << 4;
+
+	protected static final int INITIAL_CAPACITY = 4096;
+
+	protected int maxSize;
+	protected byte[] buffer;
+	protected int size;
+	protected int recordStart;
+	protected boolean overflowed = false;
+	protected boolean truncated = false;
+
+	protected long lastTime;
+	protected int lastY;
+
+	protected boolean configRecorded = false;
+	protected int configFlags;
+	protected int revealListenerType;
+	protected float parallaxEffect;
+	protected int idleRevealDelay;
+	protected int minDifferenceBeforeHide;
+	protected int minDifferenceBeforeShow;
+	protected SlotRecord headerSlotRecord = new SlotRecord();
+	protected SlotRecord footerSlotRecord = new SlotRecord();
+
+	protected boolean handledRecorded = false;
+	protected AnimationState handledAnimationState;
+	protected int handledRunningTally;
+	protected int handledLastSignificantDirection;
+
+	public ScrollTraceRecorder () {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * @param maxSize
+	 * 		The maximum size of the trace in bytes.
+	 */
+	public ScrollTraceRecorder ( int maxSize ) {
+		this.maxSize = Math.max(16, maxSize);
+		reset();
+	}
+
+	/**
+	 * Discards everything recorded so far and starts a new trace.
+	 */
+	public void reset () {
+		buffer = new byte[Math.min(INITIAL_CAPACITY, maxSize)];
+		size = 0;
+		overflowed = false;
+		truncated = false;
+		lastTime = 0;
+		lastY = 0;
+		configRecorded = false;
+		handledRecorded = false;
+
+		writeFixedInt(MAGIC);
+		writeByte(VERSION);
+	}
+
+	/**
+	 * Records a scroll event about to be handed to the engine.
+	 *
+	 * @param engine
+	 * @param time
+	 * 		In milliseconds, on the clock passed to the engine.
+	 * @param y
+	 * @param oldY
+	 */
+	public void recordScrollChanged ( QuickReturnEngine engine, long time, int y, int oldY ) {
+		if (beginRecord(engine, RECORD_SCROLL, time)) {
+			writeVarLong(zigZag((long) y - lastY));
+			writeVarLong(zigZag((long) oldY - lastY));
+			lastY = y;
+			endRecord();
+		}
+	}
+
+	/**
+	 * Records a scroll state change about to be handed to the engine. Only SCROLL_STATE_IDLE is acted on.
+	 *
+	 * @param engine
+	 * @param time
+	 * @param scrollState
+	 */
+	public void recordScrollStateChanged ( QuickReturnEngine engine, long time, int scrollState ) {
+		if (beginRecord(engine, RECORD_SCROLL_STATE, time)) {
+			writeVarLong(zigZag(scrollState));
+			endRecord();
+		}
+	}
+
+	/**
+	 * Records a fling about to be handed to the engine.
+	 *
+	 * @param engine
+	 * @param time
+	 * @param distance
+	 */
+	public void recordFling ( QuickReturnEngine engine, long time, int distance ) {
+		if (beginRecord(engine, RECORD_FLING, time)) {
+			writeVarLong(zigZag(distance));
+			endRecord();
+		}
+	}
+
+	/**
+	 * Records a tick about to be handed to the engine.
+	 *
+	 * @param engine
+	 * @param time
+	 */
+	public void recordTick ( QuickReturnEngine engine, long time ) {
+		if (beginRecord(engine, RECORD_TICK, time)) {
+			endRecord();
+		}
+	}
+
+	/**
+	 * Takes note of where the engine left things after handling the event just recorded. Call it before carrying out
+	 * the action it returned, so that whatever the action changes is recorded ahead of the next event.
+	 *
+	 * @param engine
+	 */
+	public void recordHandled ( QuickReturnEngine engine ) {
+		if (truncated) {
+			return;
+		}
+
+		ScrollTally scrollTally = engine.getScrollTally();
+		handledAnimationState = engine.getAnimationState();
+		handledRunningTally = scrollTally.getRunningTally();
+		handledLastSignificantDirection = scrollTally.getLastSignificantDirection();
+		headerSlotRecord.saveTranslations(engine.getHeaderSlots());
+		footerSlotRecord.saveTranslations(engine.getFooterSlots());
+		handledRecorded = true;
+	}
+
+	/**
+	 * Whether recording stopped because the maximum size was reached.
+	 *
+	 * @return
+	 */
+	public boolean isTruncated () {
+		return truncated;
+	}
+
+	/**
+	 * Returns the size of the trace in bytes.
+	 *
+	 * @return
+	 */
+	public int getSize () {
+		return size;
+	}
+
+	public byte[] toByteArray () {
+		byte[] trace = new byte[size];
+		System.arraycopy(buffer, 0, trace, 0, size);
+		return trace;
+	}
+
+	/**
+	 * Writes the trace recorded so far to the specified stream. Best done away from the main thread, on a copy from
+	 * toByteArray.
+	 *
+	 * @param outputStream
+	 * @throws IOException
+	 */
+	public void writeTo ( OutputStream outputStream ) throws IOException {
+		outputStream.write(buffer, 0, size);
+	}
+
+	protected boolean beginRecord ( QuickReturnEngine engine, int type, long time ) {
+		if (truncated) {
+			return false;
+		}
+
+		recordStart = size;
+
+		if (!configRecorded || hasConfigChanged(engine)) {
+			writeConfig(engine);
+		}
+
+		if (!handledRecorded || hasSyncChanged(engine)) {
+			writeSync(engine);
+		}
+
+		writeByte(type);
+		writeVarLong(zigZag(time - lastTime));
+		lastTime = time;
+
+		return true;
+	}
+
+	protected void endRecord () {
+		if (overflowed) {
+			// Drop the partly written record along with everything after it.
+			size = recordStart;
+			truncated = true;
+		}
+	}
+
+	protected boolean hasConfigChanged ( QuickReturnEngine engine ) {
+		ScrollTally scrollTally = engine.getScrollTally();
+
+		return configFlags != getConfigFlags(engine)
+				|| revealListenerType != engine.getRevealListenerType().ordinal()
+				|| parallaxEffect != engine.getParallaxEffect()
+				|| idleRevealDelay != engine.getIdleRevealDelay()
+				|| minDifferenceBeforeHide != scrollTally.getMinDifferenceBeforeHide()
+				|| minDifferenceBeforeShow != scrollTally.getMinDifferenceBeforeShow()
+				|| headerSlotRecord.hasLayoutChanged(engine.getHeaderSlots())
+				|| footerSlotRecord.hasLayoutChanged(engine.getFooterSlots());
+	}
+
+	protected void writeConfig ( QuickReturnEngine engine ) {
+		ScrollTally scrollTally = engine.getScrollTally();
+
+		configFlags = getConfigFlags(engine);
+		revealListenerType = engine.getRevealListenerType().ordinal();
+		parallaxEffect = engine.getParallaxEffect();
+		idleRevealDelay = engine.getIdleRevealDelay();
+		minDifferenceBeforeHide = scrollTally.getMinDifferenceBeforeHide();
+		minDifferenceBeforeShow = scrollTally.getMinDifferenceBeforeShow();
+		headerSlotRecord.saveLayout(engine.getHeaderSlots());
+		footerSlotRecord.saveLayout(engine.getFooterSlots());
+		configRecorded = true;
+
+		writeByte(RECORD_CONFIG);
+		writeVarLong(configFlags);
+		writeVarLong(revealListenerType);
+		writeFixedInt(Float.floatToIntBits(parallaxEffect));
+		writeVarLong(zigZag(idleRevealDelay));
+		writeVarLong(zigZag(minDifferenceBeforeHide));
+		writeVarLong(zigZag(minDifferenceBeforeShow));
+		writeSlotLayout(headerSlotRecord);
+		writeSlotLayout(footerSlotRecord);
+	}
+
+	protected void writeSlotLayout ( SlotRecord slotRecord ) {
+		writeVarLong(slotRecord.size);
+
+		for (int i = 0; i < slotRecord.size; i++) {
+			writeVarLong(slotRecord.flags[i]);
+			writeVarLong(zigZag(slotRecord.heights[i]));
+		}
+	}
+
+	protected boolean hasSyncChanged ( QuickReturnEngine engine ) {
+		ScrollTally scrollTally = engine.getScrollTally();
+
+		return handledAnimationState != engine.getAnimationState()
+				|| handledRunningTally != scrollTally.getRunningTally()
+				|| handledLastSignificantDirection != scrollTally.getLastSignificantDirection()
+				|| headerSlotRecord.haveTranslationsChanged(engine.getHeaderSlots())
+				|| footerSlotRecord.haveTranslationsChanged(engine.getFooterSlots());
+	}
+
+	protected void writeSync ( QuickReturnEngine engine ) {
+		ScrollTally scrollTally = engine.getScrollTally();
+		QuickReturnSlots headerSlots = engine.getHeaderSlots();
+		QuickReturnSlots footerSlots = engine.getFooterSlots();
+
+		writeByte(RECORD_SYNC);
+		writeVarLong(engine.getAnimationState().ordinal());
+		writeVarLong(zigZag(scrollTally.getRunningTally()));
+		writeVarLong(zigZag(scrollTally.getLastSignificantDirection()));
+
+		writeVarLong(headerSlots.size());
+		for (int i = 0; i < headerSlots.size(); i++) {
+			writeFixedInt(Float.floatToIntBits(headerSlots.getTranslation(i)));
+		}
+
+		writeVarLong(footerSlots.size());
+		for (int i = 0; i < footerSlots.size(); i++) {
+			writeFixedInt(Float.floatToIntBits(footerSlots.getTranslation(i)));
+		}
+	}
+
+	protected static int getConfigFlags ( QuickReturnEngine engine ) {
+		int flags = 0;
+
+		if (engine.isEnabled()) {
+			flags |= CONFIG_ENABLED;
+		}
+
+		if (engine.isRevealOnIdle()) {
+			flags |= CONFIG_REVEAL_ON_IDLE;
+		}
+
+		if (engine.isSnapToIntent()) {
+			flags |= CONFIG_SNAP_TO_INTENT;
+		}
+
+		if (engine.isSnapToMidpoint()) {
+			flags |= CONFIG_SNAP_TO_MIDPOINT;
+		}
+
+		if (engine.isPredictingFlings()) {
+			flags |= CONFIG_PREDICT_FLINGS;
+		}
+
+		return flags;
+	}
+
+	protected static long zigZag ( long value ) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	protected void writeVarLong ( long value ) {
+		while ((value & ~0x7FL) != 0) {
+			writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		writeByte((int) value);
+	}
+
+	protected void writeFixedInt ( int value ) {
+		writeByte(value >>> 24);
+		writeByte(value >>> 16);
+		writeByte(value >>> 8);
+		writeByte(value);
+	}
+
+	protected void writeByte ( int value ) {
+		if (size == buffer.length) {
+			if (buffer.length == maxSize) {
+				overflowed = true;
+				return;
+			}
+
+			byte[] grown = new byte[(int) Math.min((long) buffer.length * 2, maxSize)];
+			System.arraycopy(buffer, 0, grown, 0, size);
+			buffer = grown;
+		}
+
+		buffer[size++] = (byte) value;
+	}
+
+	/**
+	 * The flags, heights and translations of a QuickReturnSlots as last recorded.
+	 */
+	protected static class SlotRecord {
+		protected int size = 0;
+		protected int[] flags = new int[0];
+		protected int[] heights = new int[0];
+		protected int translationCount = 0;
+		protected float[] translations = new float[0];
+
+		protected boolean hasLayoutChanged ( QuickReturnSlots slots ) {
+			if (slots.size() != size) {
+				return true;
+			}
+
+			for (int i = 0; i < size; i++) {
+				if (slots.getFlags(i) != flags[i] || slots.getHeight(i) != heights[i]) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		protected void saveLayout ( QuickReturnSlots slots ) {
+			size = slots.size();
+
+			if (flags.length < size) {
+				flags = new int[size];
+				heights = new int[size];
+			}
+
+			for (int i = 0; i < size; i++) {
+				flags[i] = slots.getFlags(i);
+				heights[i] = slots.getHeight(i);
+			}
+		}
+
+		protected boolean haveTranslationsChanged ( QuickReturnSlots slots ) {
+			if (slots.size() != translationCount) {
+				return true;
+			}
+
+			for (int i = 0; i < translationCount; i++) {
+				// Compared bit for bit, so that a replay gets exactly the same values.
+				if (Float.floatToIntBits(slots.getTranslation(i)) != Float.floatToIntBits(translations[i])) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		protected void saveTranslations ( QuickReturnSlots slots ) {
+			translationCount = slots.size();
+
+			if (translations.length < translationCount) {
+				translations = new float[translationCount];
+			}
+
+			for (int i = 0; i < translationCount; i++) {
+				translations[i] = slots.getTranslation(i);
+			}
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.tippingcanoe.quickreturn.library;
+
+/**
+ * Feeds a trace recorded by ScrollTraceRecorder through a QuickReturnEngine exactly as the container did, reporting
+ * each event with the action the engine returned and how long it took. The engine is left as it was after each event
+ * for the listener to inspect, so the resulting translations and states of two engines can be compared event by event.
+ *
+ * Actions aren't carried out: whatever the container did with them, such as starting a transition, is part of the
+ * trace as sync records ahead of the next event.
+ */
+public class ScrollTraceReplay {
+	protected QuickReturnEngine engine;
+
+	public ScrollTraceReplay ( QuickReturnEngine engine ) {
+		this.engine = engine;
+	}
+
+	public QuickReturnEngine getEngine () {
+		return engine;
+	}
+
+	/**
+	 * Replays the specified trace from the start.
+	 *
+	 * @param trace
+	 * @param listener
+	 * 		May be null.
+	 * @return The number of events replayed.
+	 * @throws IllegalArgumentException
+	 * 		If the trace can't be read.
+	 */
+	public int replay ( byte[] trace, Listener listener ) {
+		ScrollTraceReader reader = new ScrollTraceReader(trace);
+		int eventCount = 0;
+
+		while (reader.next()) {
+			int type = reader.getType();
+			if (type == ScrollTraceRecorder.RECORD_CONFIG || type == ScrollTraceRecorder.RECORD_SYNC) {
+				reader.applyTo(engine);
+				continue;
+			}
+
+			long start = System.nanoTime();
+			int action = handle(reader);
+			long duration = System.nanoTime() - start;
+
+			if (listener != null) {
+				listener.onEventReplayed(reader, engine, action, duration);
+			}
+
+			eventCount++;
+		}
+
+		return eventCount;
+	}
+
+	protected int handle ( ScrollTraceReader reader ) {
+		switch (reader.getType()) {
+			case ScrollTraceRecorder.RECORD_SCROLL:
+				return engine.onScrollChanged(reader.getY(), reader.getOldY());
+			case ScrollTraceRecorder.RECORD_SCROLL_STATE:
+				if (reader.getScrollState() == ScrollTraceRecorder.SCROLL_STATE_IDLE) {
+					return engine.onScrollIdle(reader.getTime());
+				}
+
+				return QuickReturnEngine.ACTION_NONE;
+			case ScrollTraceRecorder.RECORD_FLING:
+				return engine.onFling(reader.getDistance());
+			case ScrollTraceRecorder.RECORD_TICK:
+				return engine.onTick(reader.getTime());
+		}
+
+		return QuickReturnEngine.ACTION_NONE;
+	}
+
+	public interface Listener {
+		/**
+		 * Called after each event is handed to the engine.
+		 *
+		 * @param reader
+		 * 		Positioned at the event's record.
+		 * @param engine
+		 * @param action
+		 * 		The action the engine returned.
+		 * @param duration
+		 * 		How long the engine took, in nanoseconds.
+		 */
+		void onEventReplayed ( ScrollTraceReader reader, QuickReturnEngine engine, int action, long duration );
+	}
+}
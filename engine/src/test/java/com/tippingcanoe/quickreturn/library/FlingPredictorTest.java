@@ -0,0 +1,25 @@
+package com.tippingcanoe.quickreturn.library;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FlingPredictorTest {
+	protected FlingPredictor predictor = new FlingPredictor(2f, FlingPredictor.DEFAULT_SCROLL_FRICTION);
+
+	@Test
+	public void distanceFollowsTheVelocity () {
+		assertEquals(0, predictor.predictDistance(0));
+		assertEquals(-predictor.predictDistance(4000), predictor.predictDistance(-4000));
+		assertTrue(predictor.predictDistance(1000) > 0);
+		assertTrue(predictor.predictDistance(4000) > predictor.predictDistance(1000));
+	}
+
+	@Test
+	public void denserDisplaysDecelerateFasterInPixels () {
+		FlingPredictor lowDensity = new FlingPredictor(1f, FlingPredictor.DEFAULT_SCROLL_FRICTION);
+
+		assertTrue(lowDensity.predictDistance(4000) > predictor.predictDistance(4000));
+	}
+}
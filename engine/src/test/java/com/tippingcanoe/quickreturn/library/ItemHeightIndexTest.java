@@ -0,0 +1,180 @@
+package com.tippingcanoe.quickreturn.library;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ItemHeightIndexTest {
+	@Test
+	public void offsetsMatchSummingEveryHeight () {
+		ItemHeightIndex itemHeightIndex = new ItemHeightIndex();
+		ArrayList<Integer> model = new ArrayList<Integer>();
+		Random random = new Random(42);
+
+		for (int step = 0; step < 5000; step++) {
+			int position = random.nextInt(300);
+			int count = 1 + random.nextInt(20);
+
+			switch (random.nextInt(5)) {
+				case 0:
+				case 1:
+					int height = random.nextInt(200);
+					itemHeightIndex.setHeight(position, height);
+					fill(model, position + 1);
+					model.set(position, height);
+					break;
+				case 2:
+					itemHeightIndex.insert(position, count);
+					if (position <= model.size()) {
+						model.addAll(position, Collections.nCopies(count, 0));
+					}
+					break;
+				case 3:
+					itemHeightIndex.remove(position, count);
+					if (position < model.size()) {
+						model.subList(position, Math.min(model.size(), position + count)).clear();
+					}
+					break;
+				case 4:
+					int toPosition = random.nextInt(300);
+					itemHeightIndex.move(position, toPosition, count);
+					fill(model, Math.max(position, toPosition) + count);
+					List<Integer> moved = new ArrayList<Integer>(model.subList(position, position + count));
+					model.subList(position, position + count).clear();
+					model.addAll(toPosition, moved);
+					break;
+			}
+
+			if (random.nextInt(50) == 0) {
+				itemHeightIndex.invalidate(position, count);
+				for (int i = position; i < Math.min(model.size(), position + count); i++) {
+					model.set(i, 0);
+				}
+			}
+
+			assertOffsets(model, itemHeightIndex, 0);
+		}
+	}
+
+	@Test
+	public void insertingKeepsHeightsPushedPastTheCapacity () {
+		ItemHeightIndex itemHeightIndex = new ItemHeightIndex();
+		for (int i = 0; i < 64; i++) {
+			itemHeightIndex.setHeight(i, 10);
+		}
+
+		itemHeightIndex.insert(10, 5);
+
+		assertEquals(640, itemHeightIndex.getOffset(69));
+		assertTrue(itemHeightIndex.isMeasured(68));
+	}
+
+	@Test
+	public void slidingTheWindowKeepsOffsets () {
+		ItemHeightIndex itemHeightIndex = new ItemHeightIndex(64);
+		ArrayList<Integer> model = new ArrayList<Integer>();
+
+		for (int i = 0; i < 500; i++) {
+			itemHeightIndex.setHeight(i, 10 + i % 7);
+			model.add(10 + i % 7);
+		}
+
+		assertTrue(itemHeightIndex.getWindowStart() > 0);
+		assertOffsets(model, itemHeightIndex, itemHeightIndex.getWindowStart());
+
+		// Heights of the positions coming back into the window are only known on average.
+		ItemHeightIndex uniformIndex = new ItemHeightIndex(64);
+		for (int i = 0; i < 500; i++) {
+			uniformIndex.setHeight(i, 10);
+		}
+
+		uniformIndex.setHeight(0, 10);
+		assertEquals(0, uniformIndex.getWindowStart());
+		for (int i = 0; i <= 64; i++) {
+			assertEquals(10 * i, uniformIndex.getOffset(i));
+		}
+	}
+
+	@Test
+	public void hintsBeyondTheCapacityAreKept () {
+		ItemHeightIndex itemHeightIndex = new ItemHeightIndex();
+		itemHeightIndex.setHintedHeight(500, 80);
+
+		assertEquals(80, itemHeightIndex.getOffset(501));
+		assertFalse(itemHeightIndex.isMeasured(500));
+		assertEquals(1, itemHeightIndex.getKnownCount());
+
+		// Past the maximum size there's nowhere to keep it.
+		ItemHeightIndex boundedIndex = new ItemHeightIndex(100);
+		assertEquals(0, boundedIndex.setHintedHeight(500, 80));
+		assertEquals(0, boundedIndex.getOffset(501));
+	}
+
+	protected static void fill ( List<Integer> model, int size ) {
+		while (model.size() < size) {
+			model.add(0);
+		}
+	}
+
+	protected static void assertOffsets ( List<Integer> model, ItemHeightIndex itemHeightIndex, int from ) {
+		long offset = 0;
+		for (int i = 0; i < from; i++) {
+			offset += model.get(i);
+		}
+
+		for (int i = from; i <= model.size(); i++) {
+			assertEquals("Offset of " + i, offset, itemHeightIndex.getOffset(i));
+
+			if (i < model.size()) {
+				offset += model.get(i);
+			}
+		}
+	}
+
+	@Test
+	public void restoredHeightsGiveTheSameOffsets () {
+		ItemHeightIndex itemHeightIndex = new ItemHeightIndex(100);
+		for (int i = 0; i < 300; i++) {
+			itemHeightIndex.setHeight(i, 10 + i % 7);
+		}
+
+		int position = 250;
+		long offset = itemHeightIndex.getOffset(position);
+		int[] measuredHeights = itemHeightIndex.getMeasuredHeights(position, 40);
+		assertEquals(40, measuredHeights.length);
+
+		ItemHeightIndex restoredIndex = new ItemHeightIndex(100);
+		restoredIndex.restore(position, offset, measuredHeights);
+
+		assertEquals(position, restoredIndex.getWindowStart());
+		for (int i = position; i <= position + 40; i++) {
+			assertEquals(itemHeightIndex.getOffset(i), restoredIndex.getOffset(i));
+		}
+	}
+
+	@Test
+	public void unmeasuredHeightsAreNotRestored () {
+		ItemHeightIndex itemHeightIndex = new ItemHeightIndex();
+		itemHeightIndex.setHeight(0, 50);
+		itemHeightIndex.setHintedHeight(1, 60);
+
+		int[] measuredHeights = itemHeightIndex.getMeasuredHeights(0, 3);
+		assertEquals(50, measuredHeights[0]);
+		assertEquals(-1, measuredHeights[1]);
+		assertEquals(-1, measuredHeights[2]);
+
+		ItemHeightIndex restoredIndex = new ItemHeightIndex();
+		restoredIndex.restore(0, 0, measuredHeights);
+
+		assertTrue(restoredIndex.isMeasured(0));
+		assertFalse(restoredIndex.isMeasured(1));
+		assertEquals(50, restoredIndex.getOffset(2));
+	}
+}
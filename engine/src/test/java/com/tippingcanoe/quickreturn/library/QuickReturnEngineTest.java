@@ -0,0 +1,197 @@
+package com.tippingcanoe.quickreturn.library;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class QuickReturnEngineTest {
+	protected QuickReturnEngine engine = new QuickReturnEngine();
+
+	protected void addHeader ( int flags, int height ) {
+		QuickReturnSlots headerSlots = engine.getHeaderSlots();
+		headerSlots.setHeight(headerSlots.add(flags), height);
+	}
+
+	protected void addFooter ( int flags, int height ) {
+		QuickReturnSlots footerSlots = engine.getFooterSlots();
+		footerSlots.setHeight(footerSlots.add(flags), height);
+	}
+
+	@Test
+	public void scrollingBelowTheThresholdDoesNothing () {
+		addHeader(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, 100);
+
+		assertEquals(QuickReturnEngine.ACTION_NONE, engine.onScrollChanged(299, 0));
+		assertEquals(0f, engine.getHeaderSlots().getTranslation(0), 0f);
+		assertEquals(QuickReturnEngine.ACTION_TRANSLATE, engine.onScrollChanged(300, 299));
+	}
+
+	@Test
+	public void headersFollowScrollingWithinTheirHeight () {
+		addHeader(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, 100);
+		engine.setParallaxEffect(1.0f);
+		engine.getScrollTally().setMinDifferenceBeforeHide(0);
+		engine.getScrollTally().setMinDifferenceBeforeShow(0);
+
+		// A single header moves twice as far as the list, as it's weighted by its share of the hideable height.
+		assertEquals(QuickReturnEngine.ACTION_TRANSLATE, engine.onScrollChanged(20, 0));
+		assertEquals(-40f, engine.getHeaderSlots().getTranslation(0), 0f);
+
+		engine.onScrollChanged(500, 20);
+		assertEquals(-100f, engine.getHeaderSlots().getTranslation(0), 0f);
+
+		engine.onScrollChanged(0, 500);
+		assertEquals(0f, engine.getHeaderSlots().getTranslation(0), 0f);
+	}
+
+	@Test
+	public void stackedSlotsHideBehindEachOther () {
+		addHeader(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, 50);
+		addHeader(QuickReturnSlots.FLAG_RENDER_OVER_LIST, 30);
+		addHeader(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, 70);
+		addFooter(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, 40);
+		addFooter(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, 60);
+
+		engine.onScrollChanged(10000, 0);
+
+		QuickReturnSlots headerSlots = engine.getHeaderSlots();
+		assertEquals(-50f, headerSlots.getTranslation(0), 0f);
+		assertEquals(0f, headerSlots.getTranslation(1), 0f);
+		assertEquals(-120f, headerSlots.getTranslation(2), 0f);
+
+		QuickReturnSlots footerSlots = engine.getFooterSlots();
+		assertEquals(40f, footerSlots.getTranslation(0), 0f);
+		assertEquals(100f, footerSlots.getTranslation(1), 0f);
+	}
+
+	@Test
+	public void permanentlyHiddenSlotsStayOutOfView () {
+		addHeader(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN | QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN, 50);
+		addHeader(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, 70);
+
+		QuickReturnSlots headerSlots = engine.getHeaderSlots();
+		headerSlots.setTranslation(0, -50);
+		headerSlots.setTranslation(1, -50);
+
+		engine.onScrollChanged(0, 10000);
+		assertEquals(-50f, headerSlots.getTranslation(0), 0f);
+		assertEquals(-50f, headerSlots.getTranslation(1), 0f);
+
+		engine.onScrollChanged(10000, 0);
+		assertEquals(-120f, headerSlots.getTranslation(1), 0f);
+	}
+
+	@Test
+	public void slotsOnlyFollowScrollingWhenSettled () {
+		addHeader(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, 100);
+		engine.setAnimationState(AnimationState.SHOWING);
+
+		assertEquals(QuickReturnEngine.ACTION_NONE, engine.onScrollChanged(1000, 0));
+		assertEquals(0f, engine.getHeaderSlots().getTranslation(0), 0f);
+
+		engine.completeTransition(AnimationState.SHOWING);
+		assertEquals(AnimationState.SHOWN, engine.getAnimationState());
+		assertEquals(QuickReturnEngine.ACTION_TRANSLATE, engine.onScrollChanged(2000, 1000));
+	}
+
+	@Test
+	public void animatedModeOnlyAsksForTransitionsThatMoveTheViews () {
+		addHeader(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, 100);
+		engine.setRevealListenerType(RevealListenerType.ANIMATED);
+
+		assertEquals(QuickReturnEngine.ACTION_HIDE, engine.onScrollChanged(1000, 0));
+
+		engine.setAnimationState(AnimationState.HIDDEN);
+		assertEquals(QuickReturnEngine.ACTION_NONE, engine.onScrollChanged(2000, 1000));
+		assertEquals(QuickReturnEngine.ACTION_SHOW, engine.onScrollChanged(1000, 2000));
+	}
+
+	@Test
+	public void idleSnapsToTheLastSignificantDirection () {
+		addHeader(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, 100);
+
+		engine.onScrollChanged(1000, 0);
+		assertEquals(QuickReturnEngine.ACTION_HIDE, engine.onScrollIdle(0));
+		assertEquals(QuickReturnEngine.ACTION_NONE, engine.onScrollIdle(0));
+
+		engine.onScrollChanged(0, 1000);
+		assertEquals(QuickReturnEngine.ACTION_SHOW, engine.onScrollIdle(0));
+	}
+
+	@Test
+	public void idleSnapsToTheMidpoint () {
+		addHeader(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, 100);
+		engine.setSnapToIntent(false);
+		engine.setSnapToMidpoint(true);
+
+		QuickReturnSlots headerSlots = engine.getHeaderSlots();
+
+		headerSlots.setTranslation(0, -80);
+		assertEquals(QuickReturnEngine.ACTION_HIDE, engine.onScrollIdle(0));
+
+		headerSlots.setTranslation(0, -50);
+		assertEquals(QuickReturnEngine.ACTION_SHOW, engine.onScrollIdle(0));
+
+		headerSlots.setTranslation(0, 0);
+		assertEquals(QuickReturnEngine.ACTION_NONE, engine.onScrollIdle(0));
+	}
+
+	@Test
+	public void revealsOnceIdleForTheDelay () {
+		addHeader(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, 100);
+		engine.setRevealOnIdle(true);
+		engine.setIdleRevealDelay(800);
+		engine.setSnapToIntent(false);
+
+		engine.onScrollIdle(1000);
+		assertEquals(1800, engine.getIdleRevealTime());
+		assertEquals(QuickReturnEngine.ACTION_NONE, engine.onTick(1799));
+		assertEquals(QuickReturnEngine.ACTION_SHOW, engine.onTick(1800));
+		assertEquals(QuickReturnEngine.ACTION_NONE, engine.onTick(1801));
+
+		engine.onScrollIdle(2000);
+		engine.onScrollChanged(1000, 0);
+		assertEquals(-1, engine.getIdleRevealTime());
+		assertEquals(QuickReturnEngine.ACTION_NONE, engine.onTick(5000));
+	}
+
+	@Test
+	public void longFlingsActAsSoonAsTheyStart () {
+		addHeader(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, 100);
+		engine.setPredictFlings(true);
+
+		assertEquals(QuickReturnEngine.ACTION_NONE, engine.onFling(299));
+		assertEquals(QuickReturnEngine.ACTION_HIDE, engine.onFling(300));
+
+		// Following the fling is skipped, turning back isn't.
+		assertEquals(QuickReturnEngine.ACTION_NONE, engine.onScrollChanged(1000, 0));
+		assertEquals(0f, engine.getHeaderSlots().getTranslation(0), 0f);
+		assertEquals(QuickReturnEngine.ACTION_TRANSLATE, engine.onScrollChanged(0, 1000));
+
+		engine.onScrollIdle(0);
+		assertEquals(QuickReturnEngine.ACTION_SHOW, engine.onFling(-100));
+		assertEquals(QuickReturnEngine.ACTION_NONE, engine.onFling(-99));
+	}
+
+	@Test
+	public void flingsAreOnlyPredictedWhenEnabledAndSettled () {
+		addHeader(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, 100);
+
+		assertEquals(QuickReturnEngine.ACTION_NONE, engine.onFling(10000));
+
+		engine.setPredictFlings(true);
+		engine.setAnimationState(AnimationState.SHOWING);
+		assertEquals(QuickReturnEngine.ACTION_NONE, engine.onFling(10000));
+	}
+
+	@Test
+	public void disabledEngineIgnoresEverything () {
+		addHeader(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, 100);
+		engine.setEnabled(false);
+		engine.setRevealOnIdle(true);
+
+		assertEquals(QuickReturnEngine.ACTION_NONE, engine.onScrollChanged(1000, 0));
+		assertEquals(QuickReturnEngine.ACTION_NONE, engine.onScrollIdle(0));
+		assertEquals(-1, engine.getIdleRevealTime());
+	}
+}
@@ -0,0 +1,53 @@
+package com.tippingcanoe.quickreturn.library;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class QuickReturnMetricsTest {
+	@Test
+	public void durationsFallInTheirBuckets () {
+		QuickReturnMetrics metrics = new QuickReturnMetrics();
+
+		metrics.onScrollEventHandled(0);
+		metrics.onScrollEventHandled(49999);
+		metrics.onScrollEventHandled(50000);
+		metrics.onScrollEventHandled(Long.MAX_VALUE / 2);
+
+		long[] durations = metrics.getScrollHandlingDurations();
+		assertEquals(2, durations[0]);
+		assertEquals(1, durations[1]);
+		assertEquals(1, durations[QuickReturnMetrics.DURATION_BUCKET_LIMITS.length]);
+	}
+
+	@Test
+	public void countsCoalescedEventsAndCompletedAnimations () {
+		QuickReturnMetrics metrics = new QuickReturnMetrics();
+
+		for (int i = 0; i < 5; i++) {
+			metrics.onScrollEventReceived();
+		}
+
+		metrics.onScrollEventHandled(1000);
+		metrics.onScrollEventHandled(1000);
+
+		metrics.onAnimationStarted();
+		metrics.onAnimationStarted();
+		metrics.onAnimationCancelled();
+		metrics.onAnimationEnded();
+		metrics.onAnimationEnded();
+
+		assertEquals(3, metrics.getScrollEventsCoalesced());
+		assertEquals(2000, metrics.getScrollHandlingTime());
+		assertEquals(1, metrics.getAnimationsCompleted());
+		assertEquals(1, metrics.getAnimationsCancelled());
+
+		metrics.setHeightCacheStats(100, 40, 30);
+		assertEquals(0.75f, metrics.getHeightCacheHitRate(), 0.0001f);
+
+		metrics.reset();
+		assertEquals(0, metrics.getScrollEventsReceived());
+		assertEquals(0, metrics.getScrollHandlingDurations()[0]);
+		assertEquals(0f, metrics.getHeightCacheHitRate(), 0f);
+	}
+}
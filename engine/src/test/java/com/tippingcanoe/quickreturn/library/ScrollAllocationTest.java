@@ -0,0 +1,132 @@
+package com.tippingcanoe.quickreturn.library;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs the offset index and the engine through a scripted scroll and checks they don't allocate once warmed up.
+ */
+public class ScrollAllocationTest {
+	protected static final int EVENT_COUNT = 10000;
+	protected static final int ITEM_COUNT = 5000;
+	protected static final int VISIBLE_ITEMS = 12;
+
+	protected ItemHeightIndex itemHeightIndex = new ItemHeightIndex(2048);
+	protected QuickReturnEngine engine = new QuickReturnEngine();
+	protected long checksum = 0;
+
+	@Test
+	public void steadyStateScrollingDoesNotAllocate () {
+		com.sun.management.ThreadMXBean threadMXBean = getThreadMXBean();
+		Assume.assumeTrue(threadMXBean != null);
+
+		setUpSlots();
+
+		// Let the index grow to its working size and get everything compiled.
+		for (int i = 0; i < 5; i++) {
+			scroll(EVENT_COUNT);
+		}
+
+		long threadId = Thread.currentThread().getId();
+		long measurementOverhead = -threadMXBean.getThreadAllocatedBytes(threadId) + threadMXBean.getThreadAllocatedBytes(threadId);
+
+		long before = threadMXBean.getThreadAllocatedBytes(threadId);
+		scroll(EVENT_COUNT);
+		long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before - measurementOverhead;
+
+		assertEquals("Bytes allocated over " + EVENT_COUNT + " scroll events", 0, Math.max(0, allocated));
+	}
+
+	protected static com.sun.management.ThreadMXBean getThreadMXBean () {
+		try {
+			com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+			if (threadMXBean.isThreadAllocatedMemorySupported()) {
+				threadMXBean.setThreadAllocatedMemoryEnabled(true);
+				return threadMXBean;
+			}
+		} catch (ClassCastException e) {
+			// Not a HotSpot style VM.
+		}
+
+		return null;
+	}
+
+	protected void setUpSlots () {
+		QuickReturnSlots headerSlots = engine.getHeaderSlots();
+		QuickReturnSlots footerSlots = engine.getFooterSlots();
+
+		engine.setRevealOnIdle(true);
+		headerSlots.add(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN);
+		headerSlots.add(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN | QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN);
+		headerSlots.add(QuickReturnSlots.FLAG_RENDER_OVER_LIST);
+		headerSlots.add(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN);
+		footerSlots.add(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN);
+		footerSlots.add(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN);
+
+		for (int i = 0; i < headerSlots.size(); i++) {
+			headerSlots.setHeight(i, 48 + i * 8);
+		}
+
+		for (int i = 0; i < footerSlots.size(); i++) {
+			footerSlots.setHeight(i, 56);
+		}
+	}
+
+	/**
+	 * Flings down and back up the list in uneven steps, doing per event what the scroll listener and container do.
+	 *
+	 * @param eventCount
+	 */
+	protected void scroll ( int eventCount ) {
+		int firstVisiblePosition = 0;
+		int top = 0;
+		int oldY = 0;
+		int direction = 1;
+
+		for (int event = 0; event < eventCount; event++) {
+			top -= direction * (7 + event % 23);
+
+			while (top < -itemHeight(firstVisiblePosition) && firstVisiblePosition + VISIBLE_ITEMS < ITEM_COUNT) {
+				top += itemHeight(firstVisiblePosition);
+				firstVisiblePosition++;
+			}
+
+			while (top > 0 && firstVisiblePosition > 0) {
+				firstVisiblePosition--;
+				top -= itemHeight(firstVisiblePosition);
+			}
+
+			if (firstVisiblePosition + VISIBLE_ITEMS >= ITEM_COUNT) {
+				direction = -1;
+			} else if (firstVisiblePosition == 0 && top >= 0) {
+				top = 0;
+				direction = 1;
+			}
+
+			for (int i = 0; i < VISIBLE_ITEMS; i++) {
+				itemHeightIndex.setHeight(firstVisiblePosition + i, itemHeight(firstVisiblePosition + i));
+			}
+
+			int y = (int) (Math.max(0, -top) + itemHeightIndex.getOffset(firstVisiblePosition));
+
+			checksum += engine.onScrollChanged(y, oldY);
+
+			if (event % 500 == 499) {
+				// Settling between flings.
+				checksum += engine.onScrollIdle(event);
+				checksum += engine.onTick(event + 1000);
+			}
+
+			oldY = y;
+		}
+	}
+
+	protected static int itemHeight ( int position ) {
+		return 80 + (position * 31) % 120;
+	}
+}
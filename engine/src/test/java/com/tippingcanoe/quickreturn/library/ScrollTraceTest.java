@@ -0,0 +1,125 @@
+package com.tippingcanoe.quickreturn.library;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScrollTraceTest {
+	protected QuickReturnEngine engine = new QuickReturnEngine();
+	protected ScrollTraceRecorder recorder = new ScrollTraceRecorder();
+	protected ArrayList<String> timeline = new ArrayList<String>();
+
+	@Test
+	public void replayingATraceRepeatsTheTimeline () {
+		QuickReturnSlots headerSlots = engine.getHeaderSlots();
+		headerSlots.setHeight(headerSlots.add(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN), 100);
+		headerSlots.setHeight(headerSlots.add(QuickReturnSlots.FLAG_RENDER_OVER_LIST), 40);
+		QuickReturnSlots footerSlots = engine.getFooterSlots();
+		footerSlots.setHeight(footerSlots.add(QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN), 60);
+		engine.setRevealOnIdle(true);
+
+		long time = 1000;
+		int y = 0;
+		for (int i = 0; i < 400; i++) {
+			// Down a long way, then back up part of it, settling at each turn.
+			int oldY = y;
+			y += i % 100 < 70 ? 13 : -29;
+			time += 16;
+			scroll(time, y, oldY);
+
+			if (i % 100 == 69 || i % 100 == 99) {
+				idle(time);
+				tick(time + 1000);
+			}
+
+			if (i == 250) {
+				// Configuration changing in the middle of the trace.
+				engine.setParallaxEffect(0.5f);
+				headerSlots.setHeight(0, 120);
+			}
+		}
+
+		final ArrayList<String> replayedTimeline = new ArrayList<String>();
+		int eventCount = new ScrollTraceReplay(new QuickReturnEngine()).replay(recorder.toByteArray(), new ScrollTraceReplay.Listener() {
+			@Override
+			public void onEventReplayed ( ScrollTraceReader reader, QuickReturnEngine engine, int action, long duration ) {
+				replayedTimeline.add(describe(engine, action));
+			}
+		});
+
+		assertEquals(timeline.size(), eventCount);
+		assertEquals(timeline, replayedTimeline);
+	}
+
+	@Test
+	public void recordingStopsAtTheMaximumSize () {
+		recorder = new ScrollTraceRecorder(256);
+
+		for (int i = 0; i < 1000; i++) {
+			scroll(i * 16, i * 10, (i - 1) * 10);
+		}
+
+		assertTrue(recorder.isTruncated());
+		assertTrue(recorder.getSize() <= 256);
+
+		int eventCount = new ScrollTraceReplay(new QuickReturnEngine()).replay(recorder.toByteArray(), null);
+		assertTrue(eventCount > 50);
+		assertTrue(eventCount < 1000);
+	}
+
+	protected void scroll ( long time, int y, int oldY ) {
+		recorder.recordScrollChanged(engine, time, y, oldY);
+		handled(engine.onScrollChanged(y, oldY));
+	}
+
+	protected void idle ( long time ) {
+		recorder.recordScrollStateChanged(engine, time, ScrollTraceRecorder.SCROLL_STATE_IDLE);
+		handled(engine.onScrollIdle(time));
+	}
+
+	protected void tick ( long time ) {
+		recorder.recordTick(engine, time);
+		handled(engine.onTick(time));
+	}
+
+	/**
+	 * Records the outcome, then carries out the action the way the container would, with transitions ending right away.
+	 *
+	 * @param action
+	 */
+	protected void handled ( int action ) {
+		recorder.recordHandled(engine);
+		timeline.add(describe(engine, action));
+
+		if (action == QuickReturnEngine.ACTION_SHOW || action == QuickReturnEngine.ACTION_HIDE) {
+			QuickReturnSlots headerSlots = engine.getHeaderSlots();
+			for (int i = 0; i < headerSlots.size(); i++) {
+				if (QuickReturnEngine.isQuickReturning(headerSlots, i)) {
+					headerSlots.setTranslation(i, action == QuickReturnEngine.ACTION_SHOW ? 0 : -headerSlots.getHideableOffset(i));
+				}
+			}
+
+			engine.completeTransition(action == QuickReturnEngine.ACTION_SHOW ? AnimationState.SHOWING : AnimationState.HIDING);
+		}
+	}
+
+	protected static String describe ( QuickReturnEngine engine, int action ) {
+		StringBuilder description = new StringBuilder();
+		description.append(action).append(' ').append(engine.getAnimationState());
+
+		QuickReturnSlots headerSlots = engine.getHeaderSlots();
+		for (int i = 0; i < headerSlots.size(); i++) {
+			description.append(' ').append(headerSlots.getTranslation(i));
+		}
+
+		QuickReturnSlots footerSlots = engine.getFooterSlots();
+		for (int i = 0; i < footerSlots.size(); i++) {
+			description.append(' ').append(footerSlots.getTranslation(i));
+		}
+
+		return description.toString();
+	}
+}
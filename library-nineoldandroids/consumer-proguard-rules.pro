@@ -0,0 +1,4 @@
+# QuickReturnContainer creates the backend by name below Ice Cream Sandwich.
+-keep class com.tippingcanoe.quickreturn.library.NineOldAndroidsAnimationBackend {
+	<init>();
+}
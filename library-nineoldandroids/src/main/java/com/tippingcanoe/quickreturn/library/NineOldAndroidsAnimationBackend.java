@@ -0,0 +1,111 @@
+package com.tippingcanoe.quickreturn.library;
+
+import android.view.View;
+import android.view.animation.Interpolator;
+import com.nineoldandroids.animation.Animator;
+import com.nineoldandroids.animation.AnimatorListenerAdapter;
+import com.nineoldandroids.animation.ValueAnimator;
+import com.nineoldandroids.view.ViewHelper;
+
+/**
+ * Runs transitions on the nineoldandroids animation backport, for releases before Ice Cream Sandwich. Translations are
+ * set through ViewHelper directly from the animated fraction, so no property is looked up by name.
+ */
+public class NineOldAndroidsAnimationBackend implements AnimationBackend {
+	@Override
+	public float getTranslationY ( View view ) {
+		return ViewHelper.getTranslationY(view);
+	}
+
+	@Override
+	public void setTranslationY ( View view, float translationY ) {
+		ViewHelper.setTranslationY(view, translationY);
+	}
+
+	@Override
+	public TranslationAnimation createTranslationAnimation ( final View view, Listener listener ) {
+		final ValueAnimator animator = ValueAnimator.ofFloat(0f, 1f);
+		animator.addListener(new ListenerAdapter(listener));
+
+		return new TranslationAnimation() {
+			protected float fromTranslation;
+			protected float toTranslation;
+
+			{
+				animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+					@Override
+					public void onAnimationUpdate ( ValueAnimator animation ) {
+						ViewHelper.setTranslationY(view, fromTranslation + (toTranslation - fromTranslation) * animation.getAnimatedFraction());
+					}
+				});
+			}
+
+			@Override
+			public void start ( float translationY, long duration, Interpolator interpolator ) {
+				fromTranslation = ViewHelper.getTranslationY(view);
+				toTranslation = translationY;
+
+				animator.setDuration(duration);
+				animator.setInterpolator(interpolator);
+				animator.start();
+			}
+
+			@Override
+			public void cancel () {
+				animator.cancel();
+			}
+		};
+	}
+
+	@Override
+	public FractionAnimation createFractionAnimation ( final FractionListener fractionListener, Listener listener ) {
+		final ValueAnimator animator = ValueAnimator.ofFloat(0f, 1f);
+		animator.addListener(new ListenerAdapter(listener));
+		animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+			@Override
+			public void onAnimationUpdate ( ValueAnimator animation ) {
+				fractionListener.onFraction(animation.getAnimatedFraction());
+			}
+		});
+
+		return new FractionAnimation() {
+			@Override
+			public void start ( long duration, Interpolator interpolator ) {
+				animator.setDuration(duration);
+				animator.setInterpolator(interpolator);
+				animator.start();
+			}
+
+			@Override
+			public void cancel () {
+				animator.cancel();
+			}
+		};
+	}
+
+	/**
+	 * Reports a nineoldandroids animator's runs to a backend listener.
+	 */
+	protected static class ListenerAdapter extends AnimatorListenerAdapter {
+		protected Listener listener;
+
+		public ListenerAdapter ( Listener listener ) {
+			this.listener = listener;
+		}
+
+		@Override
+		public void onAnimationStart ( Animator animation ) {
+			listener.onAnimationStarted();
+		}
+
+		@Override
+		public void onAnimationEnd ( Animator animation ) {
+			listener.onAnimationEnded();
+		}
+
+		@Override
+		public void onAnimationCancel ( Animator animation ) {
+			listener.onAnimationCancelled();
+		}
+	}
+}
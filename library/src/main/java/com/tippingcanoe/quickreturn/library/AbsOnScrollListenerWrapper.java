@@ -4,20 +4,61 @@ import android.widget.AbsListView;
 
 public abstract class AbsOnScrollListenerWrapper implements GenericAbsOnScrollListenerWrapper {
 	ScrollYProvider scrollYProvider;
+	boolean reportDeltas;
 
 	int oldX = 0;
-	int oldY = 0;
+	long oldY = 0;
 
 	protected AbsOnScrollListenerWrapper ( ScrollYProvider scrollYProvider ) {
+		this(scrollYProvider, false);
+	}
+
+	/**
+	 * @param scrollYProvider
+	 * @param reportDeltas
+	 * 		When true, onScrollChanged receives the distance scrolled since the previous call as y with an oldY of 0,
+	 * 		rather than absolute offsets that may not fit in an int on very long lists.
+	 */
+	protected AbsOnScrollListenerWrapper ( ScrollYProvider scrollYProvider, boolean reportDeltas ) {
 		this.scrollYProvider = scrollYProvider;
+		this.reportDeltas = reportDeltas;
+	}
+
+	/**
+	 * Returns the offset reported for the last scroll event.
+	 *
+	 * @return
+	 */
+	public long getLastScrollY () {
+		return oldY;
+	}
+
+	/**
+	 * Sets the offset the next scroll event is reported from, such as one saved before the list was recreated.
+	 *
+	 * @param lastScrollY
+	 */
+	public void setLastScrollY ( long lastScrollY ) {
+		oldY = lastScrollY;
 	}
 
 	@Override
 	public void onScroll ( AbsListView absListView, int i, int i2, int i3 ) {
 		int newX = absListView.getScrollX();
-		int newY = scrollYProvider.getScrollY(absListView);
+		long newY;
+
+		if (scrollYProvider instanceof IndexedScrollYProvider) {
+			newY = ((IndexedScrollYProvider) scrollYProvider).getLongScrollY(absListView);
+		} else {
+			newY = scrollYProvider.getScrollY(absListView);
+		}
 
-		onScrollChanged(absListView, newX, newY, oldX, oldY);
+		if (reportDeltas) {
+			long deltaY = Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, newY - oldY));
+			onScrollChanged(absListView, newX, (int) deltaY, oldX, 0);
+		} else {
+			onScrollChanged(absListView, newX, (int) newY, oldX, (int) oldY);
+		}
 
 		oldX = newX;
 		oldY = newY;
@@ -0,0 +1,65 @@
+package com.tippingcanoe.quickreturn.library;
+
+import android.view.View;
+import android.view.animation.Interpolator;
+
+/**
+ * Moves the quick returned views for the container. Implementations decide which animation framework runs the
+ * transitions; the animations they create are reused for every transition rather than built anew.
+ */
+public interface AnimationBackend {
+	public float getTranslationY ( View view );
+
+	public void setTranslationY ( View view, float translationY );
+
+	/**
+	 * Creates an animation moving the Y translation of the specified view.
+	 *
+	 * @param view
+	 * @param listener
+	 * 		Notified of the start and end of every run.
+	 * @return
+	 */
+	public TranslationAnimation createTranslationAnimation ( View view, Listener listener );
+
+	/**
+	 * Creates an animation that reports its progress from 0 to 1 on every frame, for driving several views at once.
+	 *
+	 * @param fractionListener
+	 * @param listener
+	 * 		Notified of the start and end of every run.
+	 * @return
+	 */
+	public FractionAnimation createFractionAnimation ( FractionListener fractionListener, Listener listener );
+
+	public interface TranslationAnimation {
+		/**
+		 * Moves the view from its current translation to the specified one. Any hardware layer is up to the caller.
+		 *
+		 * @param translationY
+		 * @param duration
+		 * @param interpolator
+		 */
+		public void start ( float translationY, long duration, Interpolator interpolator );
+
+		public void cancel ();
+	}
+
+	public interface FractionAnimation {
+		public void start ( long duration, Interpolator interpolator );
+
+		public void cancel ();
+	}
+
+	public interface FractionListener {
+		public void onFraction ( float fraction );
+	}
+
+	public interface Listener {
+		public void onAnimationStarted ();
+
+		public void onAnimationEnded ();
+
+		public void onAnimationCancelled ();
+	}
+}
@@ -1,21 +1,28 @@
 package com.tippingcanoe.quickreturn.library;
 
-import com.nineoldandroids.animation.Animator;
-
-public abstract class AnimationSetTracker implements Animator.AnimatorListener {
+public abstract class AnimationSetTracker implements AnimationBackend.Listener {
 	int runningAnimations;
 
 	public AnimationSetTracker () {
 		runningAnimations = 0;
 	}
 
+	/**
+	 * Returns whether any animation in the set is still running.
+	 *
+	 * @return
+	 */
+	public boolean isRunning () {
+		return runningAnimations > 0;
+	}
+
 	@Override
-	public void onAnimationStart ( Animator animation ) {
+	public void onAnimationStarted () {
 		runningAnimations++;
 	}
 
 	@Override
-	public void onAnimationEnd ( Animator animation ) {
+	public void onAnimationEnded () {
 		runningAnimations--;
 
 		if (runningAnimations <= 0) {
@@ -25,12 +32,7 @@ public abstract class AnimationSetTracker implements Animator.AnimatorListener {
 	}
 
 	@Override
-	public void onAnimationCancel ( Animator animation ) {
-
-	}
-
-	@Override
-	public void onAnimationRepeat ( Animator animation ) {
+	public void onAnimationCancelled () {
 
 	}
 
@@ -0,0 +1,75 @@
+package com.tippingcanoe.quickreturn.library;
+
+import android.widget.AbsListView;
+
+/**
+ * Lets several listeners watch the same AbsListView, which only holds a single OnScrollListener. Listeners are kept in
+ * a plain array that is replaced when they change, so dispatching a scroll event neither allocates nor is affected by
+ * listeners being added or removed during it.
+ */
+public class CompositeAbsListViewOnScrollListener implements AbsListView.OnScrollListener {
+	protected static final AbsListView.OnScrollListener[] EMPTY = new AbsListView.OnScrollListener[0];
+
+	protected AbsListView.OnScrollListener[] listeners = EMPTY;
+
+	/**
+	 * Adds a listener to be called after those already added. Adding a listener that was already added does nothing.
+	 *
+	 * @param listener
+	 */
+	public void addOnScrollListener ( AbsListView.OnScrollListener listener ) {
+		if (listener == null || indexOf(listener) >= 0) {
+			return;
+		}
+
+		AbsListView.OnScrollListener[] added = new AbsListView.OnScrollListener[listeners.length + 1];
+		System.arraycopy(listeners, 0, added, 0, listeners.length);
+		added[listeners.length] = listener;
+		listeners = added;
+	}
+
+	/**
+	 * @param listener
+	 */
+	public void removeOnScrollListener ( AbsListView.OnScrollListener listener ) {
+		int index = indexOf(listener);
+		if (index < 0) {
+			return;
+		}
+
+		AbsListView.OnScrollListener[] removed = new AbsListView.OnScrollListener[listeners.length - 1];
+		System.arraycopy(listeners, 0, removed, 0, index);
+		System.arraycopy(listeners, index + 1, removed, index, removed.length - index);
+		listeners = removed;
+	}
+
+	public void clearOnScrollListeners () {
+		listeners = EMPTY;
+	}
+
+	protected int indexOf ( AbsListView.OnScrollListener listener ) {
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] == listener) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	@Override
+	public void onScrollStateChanged ( AbsListView absListView, int i ) {
+		AbsListView.OnScrollListener[] dispatching = listeners;
+		for (int j = 0; j < dispatching.length; j++) {
+			dispatching[j].onScrollStateChanged(absListView, i);
+		}
+	}
+
+	@Override
+	public void onScroll ( AbsListView absListView, int i, int i2, int i3 ) {
+		AbsListView.OnScrollListener[] dispatching = listeners;
+		for (int j = 0; j < dispatching.length; j++) {
+			dispatching[j].onScroll(absListView, i, i2, i3);
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package com.tippingcanoe.quickreturn.library;
+
+import android.view.animation.Interpolator;
+
+/**
+ * The easing curves used for quick return transitions, as shared stateless interpolators. They match the curves of the
+ * same name in the AnimationEasingFunctions library.
+ */
+public class EasingInterpolator implements Interpolator {
+	public static final EasingInterpolator QUAD_EASE_IN = new EasingInterpolator(0);
+	public static final EasingInterpolator QUAD_EASE_OUT = new EasingInterpolator(1);
+	public static final EasingInterpolator QUINT_EASE_OUT = new EasingInterpolator(2);
+
+	protected final int curve;
+
+	protected EasingInterpolator ( int curve ) {
+		this.curve = curve;
+	}
+
+	@Override
+	public float getInterpolation ( float input ) {
+		switch (curve) {
+			case 0:
+				return input * input;
+			case 1:
+				return input * (2 - input);
+			default:
+				float remaining = input - 1;
+				return remaining * remaining * remaining * remaining * remaining + 1;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.tippingcanoe.quickreturn.library;
+
+import android.os.Build;
+import android.widget.AbsListView;
+import android.widget.GridView;
+
+/**
+ * Computes the Y offset of a GridView, or any other AbsListView laying out several items per row, by indexing one
+ * height per row rather than one per item.
+ */
+public class GridScrollYProvider extends IndexedScrollYProvider {
+	public GridScrollYProvider () {
+		super();
+	}
+
+	/**
+	 * @param maxCachedRows
+	 * 		The maximum number of row heights to hold at once. Should comfortably exceed the number of rows that fit on
+	 * 		screen.
+	 */
+	public GridScrollYProvider ( int maxCachedRows ) {
+		super(maxCachedRows);
+	}
+
+	@Override
+	protected int getColumnCount ( AbsListView listView ) {
+		if (listView instanceof GridView && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+			int numColumns = ((GridView) listView).getNumColumns();
+
+			if (numColumns > 0) {
+				return numColumns;
+			}
+		}
+
+		// Count the items sharing the first row instead.
+		int childCount = listView.getChildCount();
+		if (childCount == 0) {
+			return columnCount;
+		}
+
+		int firstRowTop = listView.getChildAt(0).getTop();
+		int columns = 1;
+
+		while (columns < childCount && listView.getChildAt(columns).getTop() == firstRowTop) {
+			columns++;
+		}
+
+		return columns;
+	}
+}
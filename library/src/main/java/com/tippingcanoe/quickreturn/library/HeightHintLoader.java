@@ -0,0 +1,170 @@
+package com.tippingcanoe.quickreturn.library;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Collects row heights from a HeightHintProvider on a background executor and hands them back to the main thread in
+ * batches.
+ */
+public class HeightHintLoader {
+	public static final int BATCH_SIZE = 128;
+
+	protected static Executor defaultExecutor;
+
+	protected HeightHintProvider heightHintProvider;
+	protected Executor executor;
+	protected OnHintsLoadedListener onHintsLoadedListener;
+	protected Handler handler = new Handler(Looper.getMainLooper());
+
+	protected volatile int generation = 0;
+	protected int requestedFromRow = 0;
+	protected int requestedToRow = 0;
+
+	/**
+	 * @param heightHintProvider
+	 * @param executor
+	 * 		The executor to call the provider on, or null to use a shared low priority background thread.
+	 * @param onHintsLoadedListener
+	 * 		Receives each batch of hints on the main thread.
+	 */
+	public HeightHintLoader ( HeightHintProvider heightHintProvider, Executor executor, OnHintsLoadedListener onHintsLoadedListener ) {
+		this.heightHintProvider = heightHintProvider;
+		this.executor = executor != null ? executor : getDefaultExecutor();
+		this.onHintsLoadedListener = onHintsLoadedListener;
+	}
+
+	protected static synchronized Executor getDefaultExecutor () {
+		if (defaultExecutor == null) {
+			defaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread ( Runnable runnable ) {
+					Thread thread = new Thread(runnable, "QuickReturn height hints");
+					thread.setDaemon(true);
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				}
+			});
+		}
+
+		return defaultExecutor;
+	}
+
+	/**
+	 * Makes sure hints for the specified range of rows have been requested. Rows requested before are not requested
+	 * again until reset.
+	 *
+	 * @param fromRow
+	 * @param toRow
+	 * 		Exclusive.
+	 * @param columnCount
+	 * @param itemCount
+	 */
+	public void request ( int fromRow, int toRow, int columnCount, int itemCount ) {
+		if (fromRow >= toRow || (fromRow >= requestedFromRow && toRow <= requestedToRow)) {
+			return;
+		}
+
+		if (requestedFromRow >= requestedToRow || toRow < requestedFromRow || fromRow > requestedToRow) {
+			submit(fromRow, toRow, columnCount, itemCount);
+			requestedFromRow = fromRow;
+			requestedToRow = toRow;
+		} else {
+			if (fromRow < requestedFromRow) {
+				submit(fromRow, requestedFromRow, columnCount, itemCount);
+				requestedFromRow = fromRow;
+			}
+
+			if (toRow > requestedToRow) {
+				submit(requestedToRow, toRow, columnCount, itemCount);
+				requestedToRow = toRow;
+			}
+		}
+	}
+
+	/**
+	 * Forgets which rows were requested so that they will be requested again.
+	 */
+	public void resetRequestedRows () {
+		requestedFromRow = 0;
+		requestedToRow = 0;
+	}
+
+	/**
+	 * Forgets which rows were requested and drops any hints still being loaded, which no longer apply to the items.
+	 */
+	public void reset () {
+		generation++;
+		resetRequestedRows();
+	}
+
+	protected void submit ( final int fromRow, final int toRow, final int columnCount, final int itemCount ) {
+		final int jobGeneration = generation;
+
+		executor.execute(new Runnable() {
+			@Override
+			public void run () {
+				for (int batchStartRow = fromRow; batchStartRow < toRow; batchStartRow += BATCH_SIZE) {
+					if (generation != jobGeneration) {
+						return;
+					}
+
+					final int startRow = batchStartRow;
+					final int[] rowHeights = new int[Math.min(BATCH_SIZE, toRow - batchStartRow)];
+
+					for (int i = 0; i < rowHeights.length; i++) {
+						rowHeights[i] = getRowHeightHint(startRow + i, columnCount, itemCount);
+					}
+
+					handler.post(new Runnable() {
+						@Override
+						public void run () {
+							if (generation == jobGeneration) {
+								onHintsLoadedListener.onHintsLoaded(startRow, rowHeights);
+							}
+						}
+					});
+				}
+			}
+		});
+	}
+
+	/**
+	 * Returns the height of the tallest item in the row, or -1 if any of them is unknown.
+	 *
+	 * @param row
+	 * @param columnCount
+	 * @param itemCount
+	 * @return
+	 */
+	protected int getRowHeightHint ( int row, int columnCount, int itemCount ) {
+		int rowHeight = 0;
+		int position = row * columnCount;
+		int end = Math.min(position + columnCount, itemCount);
+
+		for (; position < end; position++) {
+			int height = heightHintProvider.getHeightHint(position);
+			if (height < 0) {
+				return -1;
+			}
+
+			rowHeight = Math.max(rowHeight, height);
+		}
+
+		return rowHeight;
+	}
+
+	public interface OnHintsLoadedListener {
+		/**
+		 * Called on the main thread with the hinted heights of consecutive rows. Rows that couldn't be hinted are -1.
+		 *
+		 * @param fromRow
+		 * @param rowHeights
+		 */
+		public void onHintsLoaded ( int fromRow, int[] rowHeights );
+	}
+}
@@ -0,0 +1,18 @@
+package com.tippingcanoe.quickreturn.library;
+
+/**
+ * Supplies the heights items will have once laid out, for adapters able to tell from their data alone. Lets the
+ * offset of an observed AbsListView account for items that were never on screen.
+ *
+ * Called on a background thread.
+ */
+public interface HeightHintProvider {
+	/**
+	 * Returns the height, in pixels and including any divider, that the item at the specified position will have, or a
+	 * negative value if it can't be told without laying the item out.
+	 *
+	 * @param position
+	 * @return
+	 */
+	public int getHeightHint ( int position );
+}
@@ -4,11 +4,11 @@ import android.view.View;
 import android.widget.AbsListView;
 import android.widget.ListView;
 
-import java.util.Dictionary;
-import java.util.Hashtable;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 public class Helpers {
-	protected static Dictionary<Integer, Integer> listViewItemHeightCache = new Hashtable<Integer, Integer>();
+	protected static Map<AbsListView, IndexedScrollYProvider> listViewScrollYProviders = new WeakHashMap<AbsListView, IndexedScrollYProvider>();
 
 	public static int getScrollY ( ListView listView ) {
 		View c = listView.getChildAt(0);
@@ -22,27 +22,18 @@ public class Helpers {
 		return -top + firstVisiblePosition * c.getHeight();
 	}
 
+	/**
+	 * @deprecated Keeps a cache per list for as long as the list is alive. Use an IndexedScrollYProvider owned by the
+	 * caller instead.
+	 */
+	@Deprecated
 	public static int getScrollY ( AbsListView listView ) {
-		View c = listView.getChildAt(0);
-		if (c == null) {
-			return 0;
-		}
-
-		int firstVisiblePosition = listView.getFirstVisiblePosition();
-		int scrollY = -(c.getTop());
-
-		listViewItemHeightCache.put(listView.getFirstVisiblePosition(), c.getHeight());
-
-		if (scrollY < 0) {
-			scrollY = 0;
-		}
-
-		for (int i = 0; i < firstVisiblePosition; ++i) {
-			if (listViewItemHeightCache.get(i) != null) {
-				scrollY += listViewItemHeightCache.get(i);
-			}
+		IndexedScrollYProvider scrollYProvider = listViewScrollYProviders.get(listView);
+		if (scrollYProvider == null) {
+			scrollYProvider = new IndexedScrollYProvider();
+			listViewScrollYProviders.put(listView, scrollYProvider);
 		}
 
-		return scrollY;
+		return scrollYProvider.getScrollY(listView);
 	}
 }
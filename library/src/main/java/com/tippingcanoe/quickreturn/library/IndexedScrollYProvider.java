@@ -0,0 +1,611 @@
+package com.tippingcanoe.quickreturn.library;
+
+import android.database.DataSetObserver;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.view.View;
+import android.widget.AbsListView;
+import android.widget.ListAdapter;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Computes the Y offset of an AbsListView from an ItemHeightIndex of the heights of items that have been on screen,
+ * making each scroll event O(log n) in the number of items instead of O(n).
+ *
+ * The index follows changes to the list's adapter. Adapters with stable ids have inserted and removed items located
+ * relative to the first visible item so that only the affected heights move. For other adapters, the heights from the
+ * first visible item onwards are invalidated. Either way the reported offset continues from where it was instead of
+ * jumping.
+ *
+ * With height estimation enabled, rows that haven't been measured count as the average measured height of rows of
+ * the same view type rather than 0, so jumping far into a long list reports a sensible offset.
+ *
+ * A HeightHintProvider may fill in the heights of every row held by the index from a background thread. Hints for
+ * rows above the visible ones are merged without moving the reported offset.
+ *
+ * The measured heights around the first visible row can be saved with the rest of the instance state, so that a list
+ * recreated with the same number of items reports the same offsets it did before.
+ */
+public class IndexedScrollYProvider implements ScrollYProvider {
+	public static final int DEFAULT_MAX_CACHED_ITEMS = 2048;
+	public static final int MAX_SAVED_ROWS = 256;
+
+	protected ItemHeightIndex itemHeightIndex;
+
+	protected ListAdapter observedAdapter;
+	protected DataSetObserver dataSetObserver = new DataSetObserver() {
+		@Override
+		public void onChanged () {
+			handleDataSetChanged();
+		}
+
+		@Override
+		public void onInvalidated () {
+			itemHeightIndex.clear();
+			visibleRowCount = 0;
+			resetHeightHints();
+			resyncPending = true;
+		}
+	};
+
+	protected int columnCount = 1;
+	protected int lastFirstVisiblePosition = 0;
+	protected int anchorPosition = -1;
+	protected long anchorId;
+	protected long firstItemId;
+	protected int itemCount;
+
+	protected boolean resyncPending = false;
+	protected long scrollYCorrection = 0;
+	protected long lastScrollY = 0;
+
+	protected boolean estimateUnmeasuredHeights = false;
+	protected long measuredHeightSum = 0;
+	protected int measuredRowCount = 0;
+	protected long[] viewTypeHeightSums = new long[1];
+	protected int[] viewTypeRowCounts = new int[1];
+	protected ItemHeightIndex.HeightEstimator heightEstimator = new ItemHeightIndex.HeightEstimator() {
+		@Override
+		public int estimateHeight ( int row ) {
+			int position = row * columnCount;
+			if (observedAdapter == null || position >= observedAdapter.getCount()) {
+				return 0;
+			}
+
+			int viewTypeSlot = observedAdapter.getItemViewType(position) + 1;
+			if (viewTypeSlot >= 0 && viewTypeSlot < viewTypeRowCounts.length && viewTypeRowCounts[viewTypeSlot] > 0) {
+				return (int) (viewTypeHeightSums[viewTypeSlot] / viewTypeRowCounts[viewTypeSlot]);
+			}
+
+			return estimateAverageHeight();
+		}
+
+		@Override
+		public int estimateAverageHeight () {
+			return measuredRowCount > 0 ? (int) (measuredHeightSum / measuredRowCount) : 0;
+		}
+	};
+
+	protected SavedState pendingSavedState;
+
+	protected HeightHintLoader heightHintLoader;
+	protected int hintedWindowStart = -1;
+
+	protected long heightCacheLookups = 0;
+	protected long heightCacheHits = 0;
+	protected int visibleFromRow = 0;
+	protected int visibleRowCount = 0;
+
+	public IndexedScrollYProvider () {
+		this(DEFAULT_MAX_CACHED_ITEMS);
+	}
+
+	/**
+	 * @param maxCachedItems
+	 * 		The maximum number of item heights to hold at once. Should comfortably exceed the number of items that fit on
+	 * 		screen.
+	 */
+	public IndexedScrollYProvider ( int maxCachedItems ) {
+		itemHeightIndex = new ItemHeightIndex(maxCachedItems);
+	}
+
+	/**
+	 * Sets whether rows that haven't been measured yet should count as an estimate based on the rows that have, rather
+	 * than 0.
+	 *
+	 * @param estimateUnmeasuredHeights
+	 */
+	public void setEstimateUnmeasuredHeights ( boolean estimateUnmeasuredHeights ) {
+		this.estimateUnmeasuredHeights = estimateUnmeasuredHeights;
+		itemHeightIndex.setHeightEstimator(estimateUnmeasuredHeights ? heightEstimator : null);
+	}
+
+	/**
+	 * Sets a provider of item heights to be called on the specified executor, ahead of the items being laid out.
+	 *
+	 * @param heightHintProvider
+	 * @param executor
+	 * 		May be null to use a shared low priority background thread.
+	 */
+	public void setHeightHintProvider ( HeightHintProvider heightHintProvider, Executor executor ) {
+		if (heightHintLoader != null) {
+			heightHintLoader.reset();
+		}
+
+		if (heightHintProvider == null) {
+			heightHintLoader = null;
+		} else {
+			heightHintLoader = new HeightHintLoader(heightHintProvider, executor, new HeightHintLoader.OnHintsLoadedListener() {
+				@Override
+				public void onHintsLoaded ( int fromRow, int[] rowHeights ) {
+					mergeHeightHints(fromRow, rowHeights);
+				}
+			});
+		}
+
+		hintedWindowStart = -1;
+	}
+
+	@Override
+	public int getScrollY ( AbsListView listView ) {
+		return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, getLongScrollY(listView)));
+	}
+
+	/**
+	 * Returns the Y offset of the list without limiting it to the range of an int.
+	 *
+	 * @param listView
+	 * @return
+	 */
+	public long getLongScrollY ( AbsListView listView ) {
+		observeAdapter(listView.getAdapter());
+
+		int childCount = listView.getChildCount();
+		if (childCount == 0) {
+			return lastScrollY;
+		}
+
+		int firstVisiblePosition = listView.getFirstVisiblePosition();
+		int columns = Math.max(1, getColumnCount(listView));
+		if (columns != columnCount) {
+			// Every row holds different items now.
+			columnCount = columns;
+			itemHeightIndex.clear();
+			visibleRowCount = 0;
+			resetHeightHints();
+			resyncPending = true;
+		}
+
+		int firstVisibleRow = firstVisiblePosition / columnCount;
+		int lastFirstVisibleRow = lastFirstVisiblePosition / columnCount;
+
+		if (estimateUnmeasuredHeights && Math.abs(firstVisibleRow - lastFirstVisibleRow) > 1) {
+			// Jumped past rows that were estimated back when little was known, bring them up to date.
+			int fromRow = Math.min(firstVisibleRow, lastFirstVisibleRow);
+			itemHeightIndex.refreshEstimates(fromRow, Math.abs(firstVisibleRow - lastFirstVisibleRow));
+		}
+
+		for (int i = 0; i < childCount; i += columnCount) {
+			View child = listView.getChildAt(i);
+			int height;
+
+			if (i + columnCount < childCount) {
+				height = listView.getChildAt(i + columnCount).getTop() - child.getTop();
+			} else {
+				height = child.getHeight();
+			}
+
+			int row = firstVisibleRow + i / columnCount;
+			boolean measured = itemHeightIndex.isMeasured(row);
+
+			if (row < visibleFromRow || row >= visibleFromRow + visibleRowCount) {
+				// Only counted as the row comes into view, those still visible were just measured on the last event.
+				heightCacheLookups++;
+				if (measured) {
+					heightCacheHits++;
+				}
+			}
+
+			if (!measured && estimateUnmeasuredHeights) {
+				recordMeasuredHeight(firstVisiblePosition + i, height);
+			}
+
+			itemHeightIndex.setHeight(row, height);
+		}
+
+		visibleFromRow = firstVisibleRow;
+		visibleRowCount = (childCount + columnCount - 1) / columnCount;
+
+		long scrollY = Math.max(0, -listView.getChildAt(0).getTop()) + itemHeightIndex.getOffset(firstVisibleRow);
+
+		if (resyncPending) {
+			// Continue from the last reported offset, content moving under the list isn't a scroll.
+			resyncPending = false;
+			scrollYCorrection = lastScrollY - scrollY;
+		}
+
+		recordAnchor(firstVisiblePosition);
+		requestHeightHints();
+
+		lastScrollY = scrollY + scrollYCorrection;
+		return lastScrollY;
+	}
+
+	protected void requestHeightHints () {
+		if (heightHintLoader == null || observedAdapter == null) {
+			return;
+		}
+
+		int windowStart = itemHeightIndex.getWindowStart();
+		if (windowStart != hintedWindowStart) {
+			// Rows that left the window lost their hints, anything re-entering it needs them again.
+			heightHintLoader.resetRequestedRows();
+			hintedWindowStart = windowStart;
+		}
+
+		int itemCount = observedAdapter.getCount();
+		int rowCount = (itemCount + columnCount - 1) / columnCount;
+		int windowEnd = (int) Math.min((long) windowStart + itemHeightIndex.getMaxSize(), rowCount);
+
+		heightHintLoader.request(windowStart, windowEnd, columnCount, itemCount);
+	}
+
+	protected void mergeHeightHints ( int fromRow, int[] rowHeights ) {
+		int firstVisibleRow = lastFirstVisiblePosition / columnCount;
+
+		for (int i = 0; i < rowHeights.length; i++) {
+			if (rowHeights[i] >= 0) {
+				int delta = itemHeightIndex.setHintedHeight(fromRow + i, rowHeights[i]);
+
+				if (fromRow + i < firstVisibleRow) {
+					// Keep the reported offset where it was, it's the knowledge of the content that changed.
+					scrollYCorrection -= delta;
+				}
+			}
+		}
+	}
+
+	protected void resetHeightHints () {
+		if (heightHintLoader != null) {
+			heightHintLoader.reset();
+		}
+
+		hintedWindowStart = -1;
+	}
+
+	protected void recordMeasuredHeight ( int position, int height ) {
+		measuredHeightSum += height;
+		measuredRowCount++;
+
+		if (observedAdapter != null && position < observedAdapter.getCount()) {
+			int viewTypeSlot = observedAdapter.getItemViewType(position) + 1;
+
+			if (viewTypeSlot >= viewTypeRowCounts.length) {
+				int viewTypeSlots = Math.max(viewTypeSlot + 1, observedAdapter.getViewTypeCount() + 1);
+				long[] grownSums = new long[viewTypeSlots];
+				int[] grownCounts = new int[viewTypeSlots];
+				System.arraycopy(viewTypeHeightSums, 0, grownSums, 0, viewTypeHeightSums.length);
+				System.arraycopy(viewTypeRowCounts, 0, grownCounts, 0, viewTypeRowCounts.length);
+				viewTypeHeightSums = grownSums;
+				viewTypeRowCounts = grownCounts;
+			}
+
+			if (viewTypeSlot >= 0) {
+				viewTypeHeightSums[viewTypeSlot] += height;
+				viewTypeRowCounts[viewTypeSlot]++;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of items laid out side by side in each row of the list. Heights are indexed per row.
+	 *
+	 * @param listView
+	 * @return
+	 */
+	protected int getColumnCount ( AbsListView listView ) {
+		return 1;
+	}
+
+	public ItemHeightIndex getItemHeightIndex () {
+		return itemHeightIndex;
+	}
+
+	/**
+	 * Returns the number of row heights currently held that were measured or hinted. Room for more is left out.
+	 *
+	 * @return
+	 */
+	public int getCachedHeightCount () {
+		return itemHeightIndex.getKnownCount();
+	}
+
+	/**
+	 * Returns the number of row heights looked up as the rows came into view since the counters were last reset.
+	 *
+	 * @return
+	 */
+	public long getHeightCacheLookups () {
+		return heightCacheLookups;
+	}
+
+	/**
+	 * Returns the number of row heights that were already measured when the rows came into view since the counters were
+	 * last reset, such as when scrolling back.
+	 *
+	 * @return
+	 */
+	public long getHeightCacheHits () {
+		return heightCacheHits;
+	}
+
+	public void resetHeightCacheCounters () {
+		heightCacheLookups = 0;
+		heightCacheHits = 0;
+	}
+
+	/**
+	 * Releases the memory held by the item height cache and stops observing the list's adapter.
+	 */
+	public void release () {
+		observeAdapter(null);
+		itemHeightIndex.release();
+		visibleRowCount = 0;
+		resetHeightHints();
+		resyncPending = true;
+	}
+
+	/**
+	 * Returns the measured heights of the rows around the first visible one and the last reported offset, or null if
+	 * nothing was measured yet. At most MAX_SAVED_ROWS heights are kept, as it's meant to be parcelled.
+	 *
+	 * @return
+	 */
+	public SavedState onSaveInstanceState () {
+		if (observedAdapter == null) {
+			return pendingSavedState;
+		}
+
+		int firstVisibleRow = lastFirstVisiblePosition / columnCount;
+		int fromRow = Math.max(itemHeightIndex.getWindowStart(), firstVisibleRow - MAX_SAVED_ROWS / 4);
+
+		SavedState savedState = new SavedState();
+		savedState.itemCount = itemCount;
+		savedState.columnCount = columnCount;
+		savedState.firstVisiblePosition = lastFirstVisiblePosition;
+		savedState.scrollY = lastScrollY;
+		savedState.fromRow = fromRow;
+		savedState.fromRowOffset = itemHeightIndex.getOffset(fromRow);
+		savedState.measuredHeights = itemHeightIndex.getMeasuredHeights(fromRow, MAX_SAVED_ROWS);
+		savedState.measuredHeightSum = measuredHeightSum;
+		savedState.measuredRowCount = measuredRowCount;
+
+		return savedState;
+	}
+
+	/**
+	 * Puts back what onSaveInstanceState returned once the list's adapter is known. The heights are only restored if
+	 * the adapter holds as many items as it did, otherwise the offset simply continues from the saved one.
+	 *
+	 * @param savedState
+	 */
+	public void onRestoreInstanceState ( SavedState savedState ) {
+		pendingSavedState = savedState;
+
+		if (observedAdapter != null) {
+			applySavedState();
+		}
+	}
+
+	protected void applySavedState () {
+		SavedState savedState = pendingSavedState;
+		pendingSavedState = null;
+
+		if (savedState == null) {
+			return;
+		}
+
+		if (savedState.itemCount == observedAdapter.getCount()) {
+			columnCount = savedState.columnCount;
+			itemHeightIndex.restore(savedState.fromRow, savedState.fromRowOffset, savedState.measuredHeights);
+			measuredHeightSum = savedState.measuredHeightSum;
+			measuredRowCount = savedState.measuredRowCount;
+			lastFirstVisiblePosition = savedState.firstVisiblePosition;
+		}
+
+		// Continue from the saved offset whatever the list shows once laid out.
+		lastScrollY = savedState.scrollY;
+		resyncPending = true;
+	}
+
+	protected void observeAdapter ( ListAdapter adapter ) {
+		if (adapter == observedAdapter) {
+			return;
+		}
+
+		if (observedAdapter != null) {
+			observedAdapter.unregisterDataSetObserver(dataSetObserver);
+		}
+
+		observedAdapter = adapter;
+		anchorPosition = -1;
+		measuredHeightSum = 0;
+		measuredRowCount = 0;
+		viewTypeHeightSums = new long[1];
+		viewTypeRowCounts = new int[1];
+		itemHeightIndex.clear();
+		visibleRowCount = 0;
+		resetHeightHints();
+		resyncPending = true;
+
+		if (adapter != null) {
+			adapter.registerDataSetObserver(dataSetObserver);
+			itemCount = adapter.getCount();
+			applySavedState();
+		}
+	}
+
+	protected void recordAnchor ( int firstVisiblePosition ) {
+		lastFirstVisiblePosition = firstVisiblePosition;
+
+		if (observedAdapter == null || !observedAdapter.hasStableIds() || firstVisiblePosition >= observedAdapter.getCount()) {
+			anchorPosition = -1;
+		} else if (anchorPosition != firstVisiblePosition) {
+			anchorPosition = firstVisiblePosition;
+			anchorId = observedAdapter.getItemId(firstVisiblePosition);
+			firstItemId = observedAdapter.getItemId(0);
+		}
+	}
+
+	protected void handleDataSetChanged () {
+		int newItemCount = observedAdapter.getCount();
+		int delta = newItemCount - itemCount;
+		itemCount = newItemCount;
+
+		int anchorMovedTo = findAnchor(delta);
+		anchorPosition = -1;
+
+		// Hinted heights may have changed along with the items.
+		resetHeightHints();
+
+		// With the same number of items, their heights are simply picked up again as they are laid out.
+		if (delta != 0) {
+			resyncPending = true;
+
+			if (anchorMovedTo == lastFirstVisiblePosition + delta) {
+				// Everything changed ahead of the first visible item. A feed prepending items moves the first item too.
+				if (delta > 0) {
+					boolean prepended = observedAdapter.getItemId(delta) == firstItemId;
+					insertItems(prepended ? 0 : lastFirstVisiblePosition, delta);
+				} else {
+					removeItems(lastFirstVisiblePosition + delta, -delta);
+				}
+			} else if (anchorMovedTo == lastFirstVisiblePosition) {
+				// Everything changed after the first visible item.
+				invalidateItemsFrom(lastFirstVisiblePosition + 1);
+			} else {
+				// Nothing to tell where the items changed, keep only what's known to be ahead of the first visible item.
+				invalidateItemsFrom(lastFirstVisiblePosition);
+			}
+		}
+
+		if (anchorMovedTo >= 0) {
+			recordAnchor(anchorMovedTo);
+		}
+	}
+
+	protected void insertItems ( int position, int count ) {
+		if (count % columnCount == 0) {
+			itemHeightIndex.insert(position / columnCount, count / columnCount);
+		} else {
+			// Items flow into the following rows, none of which keep their heights.
+			invalidateItemsFrom(position);
+		}
+	}
+
+	protected void removeItems ( int position, int count ) {
+		if (count % columnCount == 0) {
+			itemHeightIndex.remove(position / columnCount, count / columnCount);
+		} else {
+			invalidateItemsFrom(position);
+		}
+	}
+
+	protected void invalidateItemsFrom ( int position ) {
+		int row = position / columnCount;
+
+		if (position % columnCount != 0) {
+			// The row containing the position still starts with the same items, but they may be laid out differently.
+			row++;
+		}
+
+		itemHeightIndex.invalidate(row, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns where the previous first visible item ended up after a change of the specified size, or -1 if unknown.
+	 *
+	 * @param delta
+	 * @return
+	 */
+	protected int findAnchor ( int delta ) {
+		if (anchorPosition < 0 || !observedAdapter.hasStableIds()) {
+			return -1;
+		}
+
+		int itemCount = observedAdapter.getCount();
+
+		int shiftedAnchor = anchorPosition + delta;
+		if (shiftedAnchor >= 0 && shiftedAnchor < itemCount && observedAdapter.getItemId(shiftedAnchor) == anchorId) {
+			return shiftedAnchor;
+		}
+
+		if (anchorPosition < itemCount && observedAdapter.getItemId(anchorPosition) == anchorId) {
+			return anchorPosition;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * The heights and offset of an IndexedScrollYProvider, as saved with the observing container's instance state.
+	 */
+	public static class SavedState implements Parcelable {
+		int itemCount;
+		int columnCount;
+		int firstVisiblePosition;
+		long scrollY;
+		int fromRow;
+		long fromRowOffset;
+		int[] measuredHeights;
+		long measuredHeightSum;
+		int measuredRowCount;
+
+		SavedState () {
+
+		}
+
+		SavedState ( Parcel in ) {
+			itemCount = in.readInt();
+			columnCount = in.readInt();
+			firstVisiblePosition = in.readInt();
+			scrollY = in.readLong();
+			fromRow = in.readInt();
+			fromRowOffset = in.readLong();
+			measuredHeights = in.createIntArray();
+			measuredHeightSum = in.readLong();
+			measuredRowCount = in.readInt();
+		}
+
+		@Override
+		public int describeContents () {
+			return 0;
+		}
+
+		@Override
+		public void writeToParcel ( Parcel out, int flags ) {
+			out.writeInt(itemCount);
+			out.writeInt(columnCount);
+			out.writeInt(firstVisiblePosition);
+			out.writeLong(scrollY);
+			out.writeInt(fromRow);
+			out.writeLong(fromRowOffset);
+			out.writeIntArray(measuredHeights);
+			out.writeLong(measuredHeightSum);
+			out.writeInt(measuredRowCount);
+		}
+
+		public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+			@Override
+			public SavedState createFromParcel ( Parcel in ) {
+				return new SavedState(in);
+			}
+
+			@Override
+			public SavedState[] newArray ( int size ) {
+				return new SavedState[size];
+			}
+		};
+	}
+}
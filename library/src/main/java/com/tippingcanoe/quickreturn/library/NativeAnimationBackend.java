@@ -0,0 +1,100 @@
+package com.tippingcanoe.quickreturn.library;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ObjectAnimator;
+import android.animation.ValueAnimator;
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.View;
+import android.view.animation.Interpolator;
+
+/**
+ * Runs transitions on the platform's animators, setting translations through the typed View.TRANSLATION_Y property
+ * rather than looking a setter up by name. Requires Ice Cream Sandwich.
+ */
+@TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+public class NativeAnimationBackend implements AnimationBackend {
+	@Override
+	public float getTranslationY ( View view ) {
+		return view.getTranslationY();
+	}
+
+	@Override
+	public void setTranslationY ( View view, float translationY ) {
+		view.setTranslationY(translationY);
+	}
+
+	@Override
+	public TranslationAnimation createTranslationAnimation ( View view, Listener listener ) {
+		final ObjectAnimator animator = ObjectAnimator.ofFloat(view, View.TRANSLATION_Y, 0f);
+		animator.addListener(new ListenerAdapter(listener));
+
+		return new TranslationAnimation() {
+			@Override
+			public void start ( float translationY, long duration, Interpolator interpolator ) {
+				animator.setFloatValues(translationY);
+				animator.setDuration(duration);
+				animator.setInterpolator(interpolator);
+				animator.start();
+			}
+
+			@Override
+			public void cancel () {
+				animator.cancel();
+			}
+		};
+	}
+
+	@Override
+	public FractionAnimation createFractionAnimation ( final FractionListener fractionListener, Listener listener ) {
+		final ValueAnimator animator = ValueAnimator.ofFloat(0f, 1f);
+		animator.addListener(new ListenerAdapter(listener));
+		animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+			@Override
+			public void onAnimationUpdate ( ValueAnimator animation ) {
+				fractionListener.onFraction(animation.getAnimatedFraction());
+			}
+		});
+
+		return new FractionAnimation() {
+			@Override
+			public void start ( long duration, Interpolator interpolator ) {
+				animator.setDuration(duration);
+				animator.setInterpolator(interpolator);
+				animator.start();
+			}
+
+			@Override
+			public void cancel () {
+				animator.cancel();
+			}
+		};
+	}
+
+	/**
+	 * Reports a platform animator's runs to a backend listener.
+	 */
+	protected static class ListenerAdapter extends AnimatorListenerAdapter {
+		protected Listener listener;
+
+		public ListenerAdapter ( Listener listener ) {
+			this.listener = listener;
+		}
+
+		@Override
+		public void onAnimationStart ( Animator animation ) {
+			listener.onAnimationStarted();
+		}
+
+		@Override
+		public void onAnimationEnd ( Animator animation ) {
+			listener.onAnimationEnded();
+		}
+
+		@Override
+		public void onAnimationCancel ( Animator animation ) {
+			listener.onAnimationCancelled();
+		}
+	}
+}
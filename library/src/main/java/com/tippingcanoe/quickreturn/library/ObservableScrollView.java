@@ -9,6 +9,7 @@ import android.widget.ScrollView;
 
 public class ObservableScrollView extends ScrollView {
 	protected GenericOnScrollListener<ObservableScrollView> onScrollListener;
+	protected OnFlingListener onFlingListener;
 	protected boolean isTouching;
 	protected boolean isScrolling;
 	protected int touchSlop;
@@ -36,6 +37,19 @@ public class ObservableScrollView extends ScrollView {
 		this.onScrollListener = onScrollListener;
 	}
 
+	public void setOnFlingListener ( OnFlingListener onFlingListener ) {
+		this.onFlingListener = onFlingListener;
+	}
+
+	@Override
+	public void fling ( int velocityY ) {
+		if (onFlingListener != null) {
+			onFlingListener.onFling(this, velocityY);
+		}
+
+		super.fling(velocityY);
+	}
+
 	@Override
 	protected void onScrollChanged ( int l, int t, int oldl, int oldt ) {
 		super.onScrollChanged(l, t, oldl, oldt);
@@ -82,4 +96,15 @@ public class ObservableScrollView extends ScrollView {
 
 		return super.onTouchEvent(ev);
 	}
+
+	public interface OnFlingListener {
+		/**
+		 * Called as a fling starts.
+		 *
+		 * @param view
+		 * @param velocityY
+		 * 		In pixels per second, positive when moving further into the content.
+		 */
+		public void onFling ( ObservableScrollView view, int velocityY );
+	}
 }
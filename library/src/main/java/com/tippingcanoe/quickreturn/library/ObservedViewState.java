@@ -0,0 +1,78 @@
+package com.tippingcanoe.quickreturn.library;
+
+import android.view.View;
+import android.widget.AbsListView;
+
+/**
+ * What the container keeps for each view it observes, so that making a view active again carries on where it left
+ * off: the listener following the view with its own running offsets, plus, saved when another view became active, the
+ * last offset handled, the scroll tally and the positions of the quick returned views.
+ */
+public class ObservedViewState {
+	protected View view;
+	protected ScrollYProvider scrollYProvider;
+	protected RecyclerViewOnScrollListenerWrapper recyclerViewOnScrollListener;
+	protected AbsListView.OnScrollListener listViewOnScrollListener;
+	protected CompositeAbsListViewOnScrollListener listViewOnScrollListeners;
+
+	protected int lastScrollY = 0;
+	protected int runningTally = 0;
+	protected int lastSignificantDirection = ScrollTally.DIRECTION_NONE;
+	protected AnimationState animationState;
+	protected float[] headerTranslations = new float[0];
+	protected float[] footerTranslations = new float[0];
+
+	public ObservedViewState ( View view ) {
+		this.view = view;
+	}
+
+	public View getView () {
+		return view;
+	}
+
+	/**
+	 * Keeps the current translations of the specified slots, reusing the arrays when the number of slots is unchanged.
+	 *
+	 * @param headerSlots
+	 * @param footerSlots
+	 */
+	public void saveTranslations ( QuickReturnSlots headerSlots, QuickReturnSlots footerSlots ) {
+		headerTranslations = saveTranslations(headerSlots, headerTranslations);
+		footerTranslations = saveTranslations(footerSlots, footerTranslations);
+	}
+
+	/**
+	 * Puts saved translations back into the specified slots.
+	 *
+	 * @param headerSlots
+	 * @param footerSlots
+	 * @return Whether there were translations saved for the same number of slots.
+	 */
+	public boolean restoreTranslations ( QuickReturnSlots headerSlots, QuickReturnSlots footerSlots ) {
+		if (animationState == null || headerTranslations.length != headerSlots.size() || footerTranslations.length != footerSlots.size()) {
+			return false;
+		}
+
+		for (int i = 0; i < headerTranslations.length; i++) {
+			headerSlots.setTranslation(i, headerTranslations[i]);
+		}
+
+		for (int i = 0; i < footerTranslations.length; i++) {
+			footerSlots.setTranslation(i, footerTranslations[i]);
+		}
+
+		return true;
+	}
+
+	protected static float[] saveTranslations ( QuickReturnSlots slots, float[] translations ) {
+		if (translations.length != slots.size()) {
+			translations = new float[slots.size()];
+		}
+
+		for (int i = 0; i < translations.length; i++) {
+			translations[i] = slots.getTranslation(i);
+		}
+
+		return translations;
+	}
+}
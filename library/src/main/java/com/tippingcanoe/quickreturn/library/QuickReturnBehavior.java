@@ -0,0 +1,51 @@
+package com.tippingcanoe.quickreturn.library;
+
+import android.content.Context;
+import android.support.design.widget.CoordinatorLayout;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+ * Passes the nested scrolling of a CoordinatorLayout's children on to a QuickReturnContainer that is their sibling
+ * rather than their parent. The container still needs its observed view set and nested scrolling followed, or flings
+ * predicted.
+ */
+public class QuickReturnBehavior extends CoordinatorLayout.Behavior<QuickReturnContainer> {
+	public QuickReturnBehavior () {
+		super();
+	}
+
+	public QuickReturnBehavior ( Context context, AttributeSet attrs ) {
+		super(context, attrs);
+	}
+
+	@Override
+	public boolean onStartNestedScroll ( CoordinatorLayout coordinatorLayout, QuickReturnContainer child, View directTargetChild, View target, int nestedScrollAxes ) {
+		return child.onStartNestedScroll(directTargetChild, target, nestedScrollAxes);
+	}
+
+	@Override
+	public void onNestedScrollAccepted ( CoordinatorLayout coordinatorLayout, QuickReturnContainer child, View directTargetChild, View target, int nestedScrollAxes ) {
+		child.onNestedScrollAccepted(directTargetChild, target, nestedScrollAxes);
+	}
+
+	@Override
+	public void onStopNestedScroll ( CoordinatorLayout coordinatorLayout, QuickReturnContainer child, View target ) {
+		child.onStopNestedScroll(target);
+	}
+
+	@Override
+	public void onNestedScroll ( CoordinatorLayout coordinatorLayout, QuickReturnContainer child, View target, int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed ) {
+		child.onNestedScroll(target, dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed);
+	}
+
+	@Override
+	public boolean onNestedPreFling ( CoordinatorLayout coordinatorLayout, QuickReturnContainer child, View target, float velocityX, float velocityY ) {
+		return child.onNestedPreFling(target, velocityX, velocityY);
+	}
+
+	@Override
+	public boolean onNestedFling ( CoordinatorLayout coordinatorLayout, QuickReturnContainer child, View target, float velocityX, float velocityY, boolean consumed ) {
+		return child.onNestedFling(target, velocityX, velocityY, consumed);
+	}
+}
@@ -1,69 +1,155 @@
 package com.tippingcanoe.quickreturn.library;
 
 import android.content.Context;
+import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.SystemClock;
+import android.support.v4.view.NestedScrollingChild;
+import android.support.v4.view.NestedScrollingChildHelper;
+import android.support.v4.view.NestedScrollingParent;
+import android.support.v4.view.NestedScrollingParentHelper;
+import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.widget.AbsListView;
+import android.widget.GridView;
 import android.widget.RelativeLayout;
-import com.daimajia.easing.Glider;
-import com.daimajia.easing.Skill;
-import com.nineoldandroids.animation.Animator;
-import com.nineoldandroids.animation.AnimatorSet;
-import com.nineoldandroids.animation.ObjectAnimator;
-import com.nineoldandroids.view.ViewHelper;
 
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
 
-public class QuickReturnContainer extends RelativeLayout {
+public class QuickReturnContainer extends RelativeLayout implements NestedScrollingParent, NestedScrollingChild {
 	protected View offsetView;
 	protected View observedView;
+	protected ScrollYProvider scrollYProvider;
+	protected ArrayList<ObservedViewState> observedViewStates = new ArrayList<ObservedViewState>();
+	protected ObservedViewState activeObservedViewState;
+	protected CompositeAbsListViewOnScrollListener listViewOnScrollListeners = new CompositeAbsListViewOnScrollListener();
 	protected OnMarginRecalculatedListener onMarginRecalculatedListener;
+	protected QuickReturnMetricsListener metricsListener;
+	protected QuickReturnMetrics metrics;
 	protected RecyclerView.OnScrollListener passThroughRecyclerViewOnScrollListener;
 	protected AbsListView.OnScrollListener passThroughListViewOnScrollListener;
 	protected GenericOnScrollListener<ObservableScrollView> passThroughScrollViewOnScrollListener;
 
+	protected QuickReturnEngine engine = new QuickReturnEngine();
+
 	protected ArrayList<View> headerViews = new ArrayList<View>();
-	protected ArrayList<Boolean> headerViewsShouldQuickReturn = new ArrayList<Boolean>();
-	protected ArrayList<Boolean> headerViewsRenderOverList = new ArrayList<Boolean>();
-	protected ArrayList<Integer> headerViewHeights = new ArrayList<Integer>();
-	protected ArrayList<Boolean> headerViewsPermanentlyHidden = new ArrayList<Boolean>();
+	protected QuickReturnSlots headerSlots = engine.getHeaderSlots();
+	protected ArrayList<TranslationAnimator> headerAnimators = new ArrayList<TranslationAnimator>();
 
 	protected ArrayList<View> footerViews = new ArrayList<View>();
-	protected ArrayList<Boolean> footerViewsShouldQuickReturn = new ArrayList<Boolean>();
-	protected ArrayList<Boolean> footerViewsRenderOverList = new ArrayList<Boolean>();
-	protected ArrayList<Integer> footerViewHeights = new ArrayList<Integer>();
-	protected ArrayList<Boolean> footerViewsPermanentlyHidden = new ArrayList<Boolean>();
-
-	protected AnimationState animationState = AnimationState.SHOWN;
-
-	protected int lastSignificantScrollDirection = 0;
-	protected int runningScrollTally = 0;
-	protected Runnable idleRunnable;
-
-	protected RevealListenerType revealListenerType = RevealListenerType.SCROLL;
-	protected boolean revealOnIdle = false;
-	protected boolean snapToIntent = true;
-	protected boolean snapToMidpoint = false;
-	protected float parallaxEffect = 0.8f;
+	protected QuickReturnSlots footerSlots = engine.getFooterSlots();
+	protected ArrayList<TranslationAnimator> footerAnimators = new ArrayList<TranslationAnimator>();
+
+	protected AnimationState animationStateAfterTransition;
+	protected AnimationBackend animationBackend = createDefaultAnimationBackend();
+	protected AnimationSetTracker transitionTracker = new AnimationSetTracker() {
+		@Override
+		public void onAnimationStarted () {
+			super.onAnimationStarted();
+			translationsChanged = true;
+
+			if (metrics != null) {
+				metrics.onAnimationStarted();
+			}
+		}
+
+		@Override
+		public void onAnimationEnded () {
+			if (metrics != null) {
+				metrics.onAnimationEnded();
+			}
+
+			super.onAnimationEnded();
+			translationsChanged = true;
+		}
+
+		@Override
+		public void onAnimationCancelled () {
+			super.onAnimationCancelled();
+
+			if (metrics != null) {
+				metrics.onAnimationCancelled();
+			}
+		}
+
+		@Override
+		public void onAllAnimationsEnded () {
+			restoreLayers();
+
+			if (animationStateAfterTransition != null) {
+				engine.setAnimationState(animationStateAfterTransition);
+				animationStateAfterTransition = null;
+				setupView();
+			} else {
+				animationsComplete(engine.getAnimationState());
+			}
+		}
+	};
+	protected QuickReturnTransition transition = new QuickReturnTransition(animationBackend, transitionTracker);
+
+	protected Runnable idleRunnable = new Runnable() {
+		@Override
+		public void run () {
+			long now = SystemClock.uptimeMillis();
+
+			if (scrollTraceRecorder != null) {
+				scrollTraceRecorder.recordTick(engine, now);
+			}
+
+			int action = engine.onTick(now);
+
+			if (scrollTraceRecorder != null) {
+				scrollTraceRecorder.recordHandled(engine);
+			}
+
+			performAction(action);
+		}
+	};
+
 	protected int animationTimeOut = 200;
 	protected int animationTimeIn = 300;
-	protected int idleRevealDelay = 800;
-	protected int minDifferenceBeforeHide = 300;
-	protected int minDifferenceBeforeShow = 100;
 	protected int headerOverlap = 0;
-	protected boolean enableQuickReturn = true;
+	protected boolean useHardwareLayers = true;
+	protected int maxCachedItemHeights = IndexedScrollYProvider.DEFAULT_MAX_CACHED_ITEMS;
+	protected boolean hugeListMode = false;
+	protected HeightHintProvider heightHintProvider;
+	protected Executor heightHintExecutor;
+	protected ScrollFrameCoalescer scrollFrameCoalescer;
+	protected View.OnLayoutChangeListener quickReturnViewLayoutListener;
+	protected boolean layingOutQuickReturnViews = false;
+	protected boolean quickReturnViewHeightsChanged = false;
+	protected int appliedOffsetTotal = -1;
+	protected NestedScrollingParentHelper nestedScrollingParentHelper = new NestedScrollingParentHelper(this);
+	protected NestedScrollingChildHelper nestedScrollingChildHelper = new NestedScrollingChildHelper(this);
+	protected boolean followNestedScrolling = false;
+	protected View nestedScrollTarget;
+	protected boolean forwardingNestedScroll = false;
+	protected int lastScrollY = 0;
+	protected boolean translationsChanged = true;
+	protected FlingPredictor flingPredictor;
+	protected ScrollTraceRecorder scrollTraceRecorder;
+	protected AnimationState restoredAnimationState;
+	protected float[] restoredHeaderTranslations;
+	protected float[] restoredFooterTranslations;
 
 	public QuickReturnContainer ( Context context ) {
 		super(context);
+		setNestedScrollingEnabled(true);
 	}
 
 	public QuickReturnContainer ( Context context, AttributeSet attrs ) {
 		super(context, attrs);
+		setNestedScrollingEnabled(true);
 	}
 
 	public QuickReturnContainer ( Context context, AttributeSet attrs, int defStyle ) {
 		super(context, attrs, defStyle);
+		setNestedScrollingEnabled(true);
 	}
 
 	/**
@@ -74,13 +160,13 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param enableQuickReturn
 	 */
 	public void setEnableQuickReturn(boolean enableQuickReturn) {
-		if ( this.enableQuickReturn != enableQuickReturn ) {
+		if ( engine.isEnabled() != enableQuickReturn ) {
 			if ( !enableQuickReturn ) {
 				showHiddenQuickReturns(true);
 			}
 		}
 
-		this.enableQuickReturn = enableQuickReturn;
+		engine.setEnabled(enableQuickReturn);
 	}
 
 	/**
@@ -92,7 +178,7 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param revealOnIdle
 	 */
 	public void setRevealOnIdle ( boolean revealOnIdle ) {
-		this.revealOnIdle = revealOnIdle;
+		engine.setRevealOnIdle(revealOnIdle);
 	}
 
 	/**
@@ -103,7 +189,7 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param revealListenerType
 	 */
 	public void setRevealListenerType ( RevealListenerType revealListenerType ) {
-		this.revealListenerType = revealListenerType;
+		engine.setRevealListenerType(revealListenerType);
 	}
 
 	/**
@@ -117,7 +203,7 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param snapToIntent
 	 */
 	public void setSnapToIntent ( boolean snapToIntent ) {
-		this.snapToIntent = snapToIntent;
+		engine.setSnapToIntent(snapToIntent);
 	}
 
 	/**
@@ -130,7 +216,7 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param snapToMidpoint
 	 */
 	public void setSnapToMidpoint ( boolean snapToMidpoint ) {
-		this.snapToMidpoint = snapToMidpoint;
+		engine.setSnapToMidpoint(snapToMidpoint);
 	}
 
 	/**
@@ -146,7 +232,136 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param parallaxEffect
 	 */
 	public void setParallaxEffect ( float parallaxEffect ) {
-		this.parallaxEffect = parallaxEffect;
+		engine.setParallaxEffect(parallaxEffect);
+	}
+
+	/**
+	 * Sets whether show and hide animations should be run by a single animator that moves every quick returned view in
+	 * one pass per frame, rather than by one animator per view.
+	 *
+	 * Default is false.
+	 *
+	 * @param animateWithSingleDriver
+	 */
+	public void setAnimateWithSingleDriver ( boolean animateWithSingleDriver ) {
+		transition.setSingleDriver(animateWithSingleDriver);
+	}
+
+	/**
+	 * Sets whether scroll events should be gathered and handled once per frame, with the distance scrolled since the
+	 * previous frame, rather than one by one as they arrive. Only has an effect on Jelly Bean and above.
+	 *
+	 * Default is false.
+	 *
+	 * @param coalesceScrollEvents
+	 */
+	public void setCoalesceScrollEvents ( boolean coalesceScrollEvents ) {
+		if (coalesceScrollEvents && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			if (scrollFrameCoalescer == null) {
+				scrollFrameCoalescer = new ScrollFrameCoalescer() {
+					@Override
+					public void onScrollChanged ( int y, int oldY ) {
+						handleScrollChanged(y, oldY);
+					}
+				};
+			}
+		} else if (scrollFrameCoalescer != null) {
+			scrollFrameCoalescer.flush();
+			scrollFrameCoalescer = null;
+		}
+	}
+
+	/**
+	 * Sets whether quick returned views should be drawn into hardware layers while they animate or follow scrolling,
+	 * so that each frame only composites the layers rather than redrawing the views. Applies to all attached views and
+	 * those attached later. Only has an effect on Honeycomb and above.
+	 *
+	 * Default is true.
+	 *
+	 * @param useHardwareLayers
+	 */
+	public void setUseHardwareLayers ( boolean useHardwareLayers ) {
+		this.useHardwareLayers = useHardwareLayers;
+
+		for (int i = 0; i < headerAnimators.size(); i++) {
+			headerAnimators.get(i).setUseHardwareLayer(useHardwareLayers);
+		}
+
+		for (int i = 0; i < footerAnimators.size(); i++) {
+			footerAnimators.get(i).setUseHardwareLayer(useHardwareLayers);
+		}
+	}
+
+	/**
+	 * Sets whether the observed view's nested scrolling should drive the quick returned views while it's being dragged.
+	 * Nested scrolling is reported while the content scrolls, so the views move in the same frame rather than the one
+	 * after. Flings and programmatic scrolling are still followed through the scroll listener. Works with RecyclerView
+	 * and, on Lollipop and above, scroll views with nested scrolling enabled. When the observed view isn't inside the
+	 * container, such as in a CoordinatorLayout, use QuickReturnBehavior to pass the nested scrolling on.
+	 *
+	 * Nested scrolling is passed on to the container's own nested scrolling parent either way, without consuming any of
+	 * it.
+	 *
+	 * Default is false.
+	 *
+	 * @param followNestedScrolling
+	 */
+	public void setFollowNestedScrolling ( boolean followNestedScrolling ) {
+		this.followNestedScrolling = followNestedScrolling;
+	}
+
+	/**
+	 * Sets whether flings should show or hide the quick returned views as soon as they start, when they're predicted to
+	 * scroll far enough, rather than once they come to rest. The views are then left alone until the fling ends or is
+	 * turned back. Flings are seen on ObservableScrollView and through nested scrolling, such as from RecyclerView.
+	 *
+	 * Default is false.
+	 *
+	 * @param predictFlings
+	 */
+	public void setPredictFlings ( boolean predictFlings ) {
+		engine.setPredictFlings(predictFlings);
+	}
+
+	/**
+	 * Sets what moves the quick returned views.
+	 *
+	 * Default is ViewPropertyAnimationBackend on Lollipop and above, NativeAnimationBackend on Ice Cream Sandwich and
+	 * above, otherwise NineOldAndroidsAnimationBackend from the library-nineoldandroids module.
+	 *
+	 * @param animationBackend
+	 */
+	public void setAnimationBackend ( AnimationBackend animationBackend ) {
+		this.animationBackend = animationBackend;
+		transition.setBackend(animationBackend);
+
+		for (int i = 0; i < headerAnimators.size(); i++) {
+			headerAnimators.get(i).setBackend(animationBackend);
+		}
+
+		for (int i = 0; i < footerAnimators.size(); i++) {
+			footerAnimators.get(i).setBackend(animationBackend);
+		}
+	}
+
+	/**
+	 * @return
+	 * @throws IllegalStateException
+	 * 		Below Ice Cream Sandwich, if the library-nineoldandroids module isn't included.
+	 */
+	protected static AnimationBackend createDefaultAnimationBackend () {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+			return new ViewPropertyAnimationBackend();
+		} else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+			return new NativeAnimationBackend();
+		}
+
+		// Looked up by name, as this module can't depend on the one with the backport.
+		try {
+			return (AnimationBackend) Class.forName("com.tippingcanoe.quickreturn.library.NineOldAndroidsAnimationBackend").newInstance();
+		} catch (Exception e) {
+			throw new IllegalStateException("QuickReturnContainer needs the library-nineoldandroids module below Ice Cream Sandwich.", e);
+		}
 	}
 
 	/**
@@ -160,11 +375,23 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param idleRevealDelay
 	 */
 	public void setIdleRevealDelay ( int idleRevealDelay ) {
-		this.idleRevealDelay = idleRevealDelay;
+		engine.setIdleRevealDelay(idleRevealDelay);
 	}
 
 	public void setObservedView ( RecyclerView recyclerView ) {
-		recyclerView.setOnScrollListener(new RecyclerViewOnScrollListenerWrapper() {
+		releaseObservedViews();
+		addObservedView(recyclerView);
+	}
+
+	/**
+	 * Starts observing a RecyclerView alongside any views already observed. It becomes the active one if there's none.
+	 *
+	 * @param recyclerView
+	 */
+	public void addObservedView ( RecyclerView recyclerView ) {
+		final ObservedViewState state = new ObservedViewState(recyclerView);
+
+		RecyclerViewOnScrollListenerWrapper onScrollListener = new RecyclerViewOnScrollListenerWrapper() {
 			@Override
 			public void onScrolled ( RecyclerView recyclerView, int dx, int dy ) {
 				super.onScrolled(recyclerView, dx, dy);
@@ -182,16 +409,34 @@ public class QuickReturnContainer extends RelativeLayout {
 					passThroughRecyclerViewOnScrollListener.onScrollStateChanged(recyclerView, newState);
 				}
 
-				handleScrollStateChanged(newState);
+				if (state == activeObservedViewState) {
+					dispatchScrollStateChanged(newState);
+				}
 			}
 
 			@Override
 			public void onScrollChanged ( RecyclerView view, int x, int y, int oldX, int oldY ) {
-				handleScrollChanged(y, oldY);
+				if (state == activeObservedViewState) {
+					dispatchScrollChanged(y, oldY, false);
+				}
 			}
-		});
 
-		observedView = recyclerView;
+			@Override
+			protected void onAdapterDataChanged () {
+				if (state == activeObservedViewState) {
+					engine.getScrollTally().reset();
+				} else {
+					state.runningTally = 0;
+				}
+			}
+		};
+
+		removeObservedView(recyclerView);
+		onScrollListener.observeAdapter(recyclerView.getAdapter());
+		recyclerView.addOnScrollListener(onScrollListener);
+		state.recyclerViewOnScrollListener = onScrollListener;
+
+		addObservedViewState(state);
 	}
 
 	/**
@@ -200,12 +445,28 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param listView
 	 */
 	public void setObservedView ( AbsListView listView ) {
-		setObservedView(listView, new ScrollYProvider() {
-			@Override
-			public int getScrollY ( AbsListView listView ) {
-				return Helpers.getScrollY(listView);
-			}
-		});
+		setObservedView(listView, createScrollYProvider(listView));
+	}
+
+	/**
+	 * Starts observing an AbsListView alongside any views already observed. It becomes the active one if there's none.
+	 *
+	 * @param listView
+	 */
+	public void addObservedView ( AbsListView listView ) {
+		addObservedView(listView, createScrollYProvider(listView));
+	}
+
+	protected IndexedScrollYProvider createScrollYProvider ( AbsListView listView ) {
+		IndexedScrollYProvider scrollYProvider;
+		if (listView instanceof GridView) {
+			scrollYProvider = new GridScrollYProvider(maxCachedItemHeights);
+		} else {
+			scrollYProvider = new IndexedScrollYProvider(maxCachedItemHeights);
+		}
+
+		scrollYProvider.setEstimateUnmeasuredHeights(hugeListMode);
+		return scrollYProvider;
 	}
 
 	/**
@@ -216,34 +477,50 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param scrollYProvider
 	 */
 	public void setObservedView ( AbsListView listView, ScrollYProvider scrollYProvider ) {
-		listView.setOnScrollListener(new AbsOnScrollListenerWrapper(scrollYProvider) {
-			@Override
-			public void onScroll ( AbsListView absListView, int i, int i2, int i3 ) {
-				super.onScroll(absListView, i, i2, i3);
+		releaseObservedViews();
+		addObservedView(listView, scrollYProvider);
+	}
 
-				if (passThroughListViewOnScrollListener != null) {
-					passThroughListViewOnScrollListener.onScroll(absListView, i, i2, i3);
-				}
-			}
+	/**
+	 * Starts observing an AbsListView alongside any views already observed. It becomes the active one if there's none.
+	 * Allows injection of a custom Y offset provider.
+	 *
+	 * @param listView
+	 * @param scrollYProvider
+	 */
+	public void addObservedView ( AbsListView listView, ScrollYProvider scrollYProvider ) {
+		final ObservedViewState state = new ObservedViewState(listView);
+
+		removeObservedView(listView);
 
+		state.listViewOnScrollListener = new AbsOnScrollListenerWrapper(scrollYProvider, hugeListMode) {
 			@Override
 			public void onScrollStateChanged ( AbsListView listView, int i ) {
-				if (passThroughListViewOnScrollListener != null) {
-					passThroughListViewOnScrollListener.onScrollStateChanged(listView, i);
+				if (state == activeObservedViewState) {
+					dispatchScrollStateChanged(i);
 				}
-
-				handleScrollStateChanged(i);
 			}
 
 			@Override
 			public void onScrollChanged ( AbsListView view, int x, int y, int oldX, int oldY ) {
-				handleScrollChanged(y, oldY);
+				if (state == activeObservedViewState) {
+					dispatchScrollChanged(y, oldY, reportDeltas);
+				}
 			}
+		};
 
+		// Each list gets its own wrapper, and everything added to the container.
+		state.listViewOnScrollListeners = new CompositeAbsListViewOnScrollListener();
+		state.listViewOnScrollListeners.addOnScrollListener(state.listViewOnScrollListener);
+		state.listViewOnScrollListeners.addOnScrollListener(listViewOnScrollListeners);
+		listView.setOnScrollListener(state.listViewOnScrollListeners);
 
-		});
+		if (heightHintProvider != null && scrollYProvider instanceof IndexedScrollYProvider) {
+			((IndexedScrollYProvider) scrollYProvider).setHeightHintProvider(heightHintProvider, heightHintExecutor);
+		}
 
-		observedView = listView;
+		state.scrollYProvider = scrollYProvider;
+		addObservedViewState(state);
 	}
 
 	/**
@@ -252,6 +529,29 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param scrollView
 	 */
 	public void setObservedView ( ObservableScrollView scrollView ) {
+		releaseObservedViews();
+		addObservedView(scrollView);
+	}
+
+	/**
+	 * Starts observing an ObservableScrollView alongside any views already observed. It becomes the active one if
+	 * there's none.
+	 *
+	 * @param scrollView
+	 */
+	public void addObservedView ( ObservableScrollView scrollView ) {
+		final ObservedViewState state = new ObservedViewState(scrollView);
+
+		removeObservedView(scrollView);
+
+		scrollView.setOnFlingListener(new ObservableScrollView.OnFlingListener() {
+			@Override
+			public void onFling ( ObservableScrollView view, int velocityY ) {
+				if (state == activeObservedViewState) {
+					handleFling(velocityY);
+				}
+			}
+		});
 		scrollView.setOnScrollListener(new GenericOnScrollListener<ObservableScrollView>() {
 			@Override
 			public void onScrollChanged ( ObservableScrollView view, int x, int y, int oldX, int oldY ) {
@@ -259,7 +559,9 @@ public class QuickReturnContainer extends RelativeLayout {
 					passThroughScrollViewOnScrollListener.onScrollChanged(view, x, y, oldX, oldY);
 				}
 
-				handleScrollChanged(y, oldY);
+				if (state == activeObservedViewState) {
+					dispatchScrollChanged(y, oldY, false);
+				}
 			}
 
 			@Override
@@ -268,11 +570,164 @@ public class QuickReturnContainer extends RelativeLayout {
 					passThroughScrollViewOnScrollListener.onScrollStateChanged(view, i);
 				}
 
-				handleScrollStateChanged(i);
+				if (state == activeObservedViewState) {
+					dispatchScrollStateChanged(i);
+				}
 			}
 		});
 
-		observedView = scrollView;
+		addObservedViewState(state);
+	}
+
+	/**
+	 * Makes one of the observed views the one that moves the quick returned views, such as when switching between the
+	 * pages of a ViewPager. It picks up from where it was when last active, including where the quick returned views
+	 * were, without measuring anything again.
+	 *
+	 * @param view
+	 */
+	public void setActiveObservedView ( View view ) {
+		ObservedViewState state = getObservedViewState(view);
+
+		if (state != null && state != activeObservedViewState) {
+			if (scrollFrameCoalescer != null) {
+				scrollFrameCoalescer.flush();
+			}
+
+			saveObservedViewState(activeObservedViewState);
+			activateObservedViewState(state);
+		}
+	}
+
+	/**
+	 * Stops observing the specified view. If it was the active one, the first of the others becomes active.
+	 *
+	 * @param view
+	 */
+	public void removeObservedView ( View view ) {
+		ObservedViewState state = getObservedViewState(view);
+
+		if (state != null) {
+			observedViewStates.remove(state);
+			releaseObservedViewState(state);
+
+			if (state == activeObservedViewState) {
+				activeObservedViewState = null;
+				observedView = null;
+				scrollYProvider = null;
+
+				if (!observedViewStates.isEmpty()) {
+					activateObservedViewState(observedViewStates.get(0));
+				}
+			}
+		}
+	}
+
+	protected ObservedViewState getObservedViewState ( View view ) {
+		for (int i = 0; i < observedViewStates.size(); i++) {
+			if (observedViewStates.get(i).view == view) {
+				return observedViewStates.get(i);
+			}
+		}
+
+		return null;
+	}
+
+	protected void addObservedViewState ( ObservedViewState state ) {
+		observedViewStates.add(state);
+
+		if (activeObservedViewState == null) {
+			activateObservedViewState(state);
+		}
+	}
+
+	protected void saveObservedViewState ( ObservedViewState state ) {
+		if (state == null) {
+			return;
+		}
+
+		ScrollTally scrollTally = engine.getScrollTally();
+		state.lastScrollY = lastScrollY;
+		state.runningTally = scrollTally.getRunningTally();
+		state.lastSignificantDirection = scrollTally.getLastSignificantDirection();
+
+		if (engine.isSettled()) {
+			readTranslations();
+			state.saveTranslations(headerSlots, footerSlots);
+			state.animationState = engine.getAnimationState();
+		} else {
+			// Mid transition, so let it finish rather than saving where it happens to be.
+			state.animationState = null;
+		}
+	}
+
+	protected void activateObservedViewState ( ObservedViewState state ) {
+		activeObservedViewState = state;
+		observedView = state.view;
+		scrollYProvider = state.scrollYProvider;
+		lastScrollY = state.lastScrollY;
+		engine.getScrollTally().restore(state.runningTally, state.lastSignificantDirection);
+
+		if (engine.isSettled() && state.restoreTranslations(headerSlots, footerSlots)) {
+			engine.setAnimationState(state.animationState);
+			writeTranslations();
+			restoreLayers();
+		}
+	}
+
+	/**
+	 * Sets the maximum number of item heights kept for an observed AbsListView. Heights of items further away than this
+	 * from the visible items are evicted. Applies to views observed afterwards.
+	 *
+	 * Default is 2048.
+	 *
+	 * @param maxCachedItemHeights
+	 */
+	public void setMaxCachedItemHeights ( int maxCachedItemHeights ) {
+		this.maxCachedItemHeights = maxCachedItemHeights;
+	}
+
+	/**
+	 * Sets whether observed AbsListViews should be tracked in a way suited to lists of up to millions of items. Offsets
+	 * are kept as longs, items that haven't been on screen are estimated from the average height of those that have,
+	 * and only the distance scrolled is passed on from each scroll event. Applies to views observed afterwards.
+	 *
+	 * Default is false.
+	 *
+	 * @param hugeListMode
+	 */
+	public void setHugeListMode ( boolean hugeListMode ) {
+		this.hugeListMode = hugeListMode;
+	}
+
+	/**
+	 * Sets a provider of item heights for an observed AbsListView, called on a shared background thread to account for
+	 * items before they are laid out.
+	 *
+	 * @param heightHintProvider
+	 */
+	public void setHeightHintProvider ( HeightHintProvider heightHintProvider ) {
+		setHeightHintProvider(heightHintProvider, null);
+	}
+
+	/**
+	 * Sets a provider of item heights for an observed AbsListView, called on the specified executor to account for
+	 * items before they are laid out.
+	 *
+	 * @param heightHintProvider
+	 * @param executor
+	 */
+	public void setHeightHintProvider ( HeightHintProvider heightHintProvider, Executor executor ) {
+		this.heightHintProvider = heightHintProvider;
+		this.heightHintExecutor = executor;
+
+		for (int i = 0; i < observedViewStates.size(); i++) {
+			ScrollYProvider observedScrollYProvider = observedViewStates.get(i).scrollYProvider;
+
+			if (observedScrollYProvider instanceof IndexedScrollYProvider) {
+				((IndexedScrollYProvider) observedScrollYProvider).setHeightHintProvider(heightHintProvider, executor);
+			}
+		}
 	}
 
 	/**
@@ -283,11 +738,12 @@ public class QuickReturnContainer extends RelativeLayout {
 	 */
 	public void setOffsetView ( View offsetView ) {
 		this.offsetView = offsetView;
+		appliedOffsetTotal = -1;
 	}
 
 	/**
-	 * Set the OnScrollListener for the attached RecyclerView. Note that this library consumes the normal
-	 * OnScrollListener, so you need to use this passthrough.
+	 * Set the OnScrollListener for the attached RecyclerView. This library adds its listener alongside any others, so
+	 * listeners can also be added to the RecyclerView directly, which skips this passthrough.
 	 *
 	 * @param onScrollListener
 	 */
@@ -296,15 +752,34 @@ public class QuickReturnContainer extends RelativeLayout {
 	}
 
 	/**
-	 * Set the OnScrollListener for the attached AbsListView. Note that this library consumes the normal
-	 * OnScrollListener, so you need to use this passthrough.
+	 * Set the OnScrollListener for the attached AbsListView, replacing the one previously set here. Note that this
+	 * library consumes the normal OnScrollListener, so you need to use this or addOnScrollListener.
 	 *
 	 * @param onScrollListener
 	 */
 	public void setOnScrollListener ( AbsListView.OnScrollListener onScrollListener ) {
+		listViewOnScrollListeners.removeOnScrollListener(passThroughListViewOnScrollListener);
+		listViewOnScrollListeners.addOnScrollListener(onScrollListener);
 		this.passThroughListViewOnScrollListener = onScrollListener;
 	}
 
+	/**
+	 * Adds an OnScrollListener to be called alongside this library's for the observed AbsListView. The list only holds
+	 * a single listener, which this library sets, so add any others here rather than on the list.
+	 *
+	 * @param onScrollListener
+	 */
+	public void addOnScrollListener ( AbsListView.OnScrollListener onScrollListener ) {
+		listViewOnScrollListeners.addOnScrollListener(onScrollListener);
+	}
+
+	/**
+	 * @param onScrollListener
+	 */
+	public void removeOnScrollListener ( AbsListView.OnScrollListener onScrollListener ) {
+		listViewOnScrollListeners.removeOnScrollListener(onScrollListener);
+	}
+
 	/**
 	 * Set the OnScrollListener for the attached ScrollView. Note that this library consumes the normal
 	 * OnScrollListener, so you need to use this passthrough.
@@ -325,9 +800,11 @@ public class QuickReturnContainer extends RelativeLayout {
 	 */
 	public void attachHeaderView ( View view, boolean shouldQuickReturn, boolean rendersOverList, boolean permanentlyHidden ) {
 		headerViews.add(view);
-		headerViewsShouldQuickReturn.add(shouldQuickReturn);
-		headerViewsRenderOverList.add(rendersOverList);
-		headerViewsPermanentlyHidden.add(permanentlyHidden);
+		TranslationAnimator animator = new TranslationAnimator(view, animationBackend, transitionTracker);
+		animator.setUseHardwareLayer(useHardwareLayers);
+		headerAnimators.add(animator);
+		headerSlots.setHeight(headerSlots.add(getSlotFlags(shouldQuickReturn, rendersOverList, permanentlyHidden)), getQuickReturnViewHeight(view));
+		trackQuickReturnViewHeight(view);
 	}
 
 	/**
@@ -346,10 +823,11 @@ public class QuickReturnContainer extends RelativeLayout {
 	 */
 	public void detachHeaderView ( int index ) {
 		if (index >= 0 && index < headerViews.size()) {
-			headerViews.remove(index);
-			headerViewsShouldQuickReturn.remove(index);
-			headerViewsRenderOverList.remove(index);
-			headerViewsPermanentlyHidden.remove(index);
+			untrackQuickReturnViewHeight(headerViews.remove(index));
+			TranslationAnimator animator = headerAnimators.remove(index);
+			animator.cancel();
+			animator.restoreLayer();
+			headerSlots.remove(index);
 
 			setupView();
 		}
@@ -373,7 +851,7 @@ public class QuickReturnContainer extends RelativeLayout {
 	 */
 	public void setHeaderViewShouldRenderAboveList ( int index, boolean shouldRenderAboveList ) {
 		if (index >= 0 && index < headerViews.size()) {
-			headerViewsRenderOverList.set(index, shouldRenderAboveList);
+			headerSlots.setFlag(index, QuickReturnSlots.FLAG_RENDER_OVER_LIST, shouldRenderAboveList);
 
 			setupView();
 		}
@@ -397,12 +875,36 @@ public class QuickReturnContainer extends RelativeLayout {
 	 */
 	public void setHeaderViewShouldQuickReturn ( int index, boolean shouldQuickReturn ) {
 		if (index >= 0 && index < headerViews.size()) {
-			headerViewsShouldQuickReturn.set(index, shouldQuickReturn);
+			headerSlots.setFlag(index, QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, shouldQuickReturn);
 
 			setupView();
 		}
 	}
 
+	/**
+	 * Sets whether the specified header view should be drawn into a hardware layer while it animates or follows
+	 * scrolling. Only has an effect on Honeycomb and above.
+	 *
+	 * @param view
+	 * @param useHardwareLayer
+	 */
+	public void setHeaderViewUsesHardwareLayer ( View view, boolean useHardwareLayer ) {
+		setHeaderViewUsesHardwareLayer(headerViews.indexOf(view), useHardwareLayer);
+	}
+
+	/**
+	 * Sets whether the specified header view should be drawn into a hardware layer while it animates or follows
+	 * scrolling. Only has an effect on Honeycomb and above.
+	 *
+	 * @param index
+	 * @param useHardwareLayer
+	 */
+	public void setHeaderViewUsesHardwareLayer ( int index, boolean useHardwareLayer ) {
+		if (index >= 0 && index < headerViews.size()) {
+			headerAnimators.get(index).setUseHardwareLayer(useHardwareLayer);
+		}
+	}
+
 	/**
 	 * Attaches a view to be a footer for the observed scrollable area.
 	 *
@@ -413,9 +915,11 @@ public class QuickReturnContainer extends RelativeLayout {
 	 */
 	public void attachFooterView ( View view, boolean shouldQuickReturn, boolean rendersOverList, boolean permanentlyHidden ) {
 		footerViews.add(view);
-		footerViewsShouldQuickReturn.add(shouldQuickReturn);
-		footerViewsRenderOverList.add(rendersOverList);
-		footerViewsPermanentlyHidden.add(permanentlyHidden);
+		TranslationAnimator animator = new TranslationAnimator(view, animationBackend, transitionTracker);
+		animator.setUseHardwareLayer(useHardwareLayers);
+		footerAnimators.add(animator);
+		footerSlots.setHeight(footerSlots.add(getSlotFlags(shouldQuickReturn, rendersOverList, permanentlyHidden)), getQuickReturnViewHeight(view));
+		trackQuickReturnViewHeight(view);
 	}
 
 	/**
@@ -434,10 +938,11 @@ public class QuickReturnContainer extends RelativeLayout {
 	 */
 	public void detachFooterView ( int index ) {
 		if (index >= 0 && index < footerViews.size()) {
-			footerViews.remove(index);
-			footerViewsShouldQuickReturn.remove(index);
-			footerViewsRenderOverList.remove(index);
-			footerViewsPermanentlyHidden.remove(index);
+			untrackQuickReturnViewHeight(footerViews.remove(index));
+			TranslationAnimator animator = footerAnimators.remove(index);
+			animator.cancel();
+			animator.restoreLayer();
+			footerSlots.remove(index);
 
 			setupView();
 		}
@@ -461,7 +966,7 @@ public class QuickReturnContainer extends RelativeLayout {
 	 */
 	public void setFooterViewShouldRenderAboveList ( int index, boolean shouldRenderAboveList ) {
 		if (index >= 0 && index < footerViews.size()) {
-			footerViewsRenderOverList.set(index, shouldRenderAboveList);
+			footerSlots.setFlag(index, QuickReturnSlots.FLAG_RENDER_OVER_LIST, shouldRenderAboveList);
 
 			setupView();
 		}
@@ -485,12 +990,36 @@ public class QuickReturnContainer extends RelativeLayout {
 	 */
 	public void setFooterViewShouldQuickReturn ( int index, boolean shouldQuickReturn ) {
 		if (index >= 0 && index < footerViews.size()) {
-			footerViewsShouldQuickReturn.set(index, shouldQuickReturn);
+			footerSlots.setFlag(index, QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN, shouldQuickReturn);
 
 			setupView();
 		}
 	}
 
+	/**
+	 * Sets whether the specified footer view should be drawn into a hardware layer while it animates or follows
+	 * scrolling. Only has an effect on Honeycomb and above.
+	 *
+	 * @param view
+	 * @param useHardwareLayer
+	 */
+	public void setFooterViewUsesHardwareLayer ( View view, boolean useHardwareLayer ) {
+		setFooterViewUsesHardwareLayer(footerViews.indexOf(view), useHardwareLayer);
+	}
+
+	/**
+	 * Sets whether the specified footer view should be drawn into a hardware layer while it animates or follows
+	 * scrolling. Only has an effect on Honeycomb and above.
+	 *
+	 * @param index
+	 * @param useHardwareLayer
+	 */
+	public void setFooterViewUsesHardwareLayer ( int index, boolean useHardwareLayer ) {
+		if (index >= 0 && index < footerViews.size()) {
+			footerAnimators.get(index).setUseHardwareLayer(useHardwareLayer);
+		}
+	}
+
 	/**
 	 * Sets the time, in ms, that it should take for the quick returned views to animate out when using
 	 * RevealListenerType.ANIMATED.
@@ -524,7 +1053,7 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param minDifferenceBeforeHide
 	 */
 	public void setMinDifferenceBeforeHide ( int minDifferenceBeforeHide ) {
-		this.minDifferenceBeforeHide = minDifferenceBeforeHide;
+		engine.getScrollTally().setMinDifferenceBeforeHide(minDifferenceBeforeHide);
 	}
 
 	/**
@@ -536,7 +1065,7 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param minDifferenceBeforeShow
 	 */
 	public void setMinDifferenceBeforeShow ( int minDifferenceBeforeShow ) {
-		this.minDifferenceBeforeShow = minDifferenceBeforeShow;
+		engine.getScrollTally().setMinDifferenceBeforeShow(minDifferenceBeforeShow);
 	}
 
 	/**
@@ -545,61 +1074,35 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param animated
 	 */
 	public void showHiddenQuickReturns ( boolean animated ) {
-		if (animationState == AnimationState.SHOWN || animationState == AnimationState.HIDDEN) {
+		if (engine.isSettled()) {
 			if (animated) {
-				ArrayList<Animator> animators = new ArrayList<Animator>();
-
-				int runningPermanentlyHiddenHeaderHeightSum = 0;
-				for (int i = 0; i < headerViews.size(); i++) {
-					if (headerViewsPermanentlyHidden.get(i)) {
-						runningPermanentlyHiddenHeaderHeightSum += headerViewHeights.get(i);
-					} else if (headerViewsShouldQuickReturn.get(i)) {
-						View view = headerViews.get(i);
-						animators.add(Glider.glide(Skill.QuintEaseOut, animationTimeIn, ObjectAnimator.ofFloat(view, "translationY", -1 * runningPermanentlyHiddenHeaderHeightSum)));
+				transition.begin();
+
+				for (int i = 0; i < headerSlots.size(); i++) {
+					if (QuickReturnEngine.isQuickReturning(headerSlots, i)) {
+						transition.queue(headerAnimators.get(i), -1 * headerSlots.getPermanentlyHiddenOffset(i));
 					}
 				}
 
-				int runningPermanentlyHiddenFooterHeightSum = 0;
-				for (int i = 0; i < footerViews.size(); i++) {
-					if (footerViewsPermanentlyHidden.get(i)) {
-						runningPermanentlyHiddenFooterHeightSum += footerViewHeights.get(i);
-					} else if (footerViewsShouldQuickReturn.get(i)) {
-						View view = footerViews.get(i);
-						animators.add(Glider.glide(Skill.QuintEaseOut, animationTimeIn, ObjectAnimator.ofFloat(view, "translationY", runningPermanentlyHiddenFooterHeightSum)));
+				for (int i = 0; i < footerSlots.size(); i++) {
+					if (QuickReturnEngine.isQuickReturning(footerSlots, i)) {
+						transition.queue(footerAnimators.get(i), footerSlots.getPermanentlyHiddenOffset(i));
 					}
 				}
 
-				if (animators.size() > 0) {
-					animationState = AnimationState.SHOWING;
-					AnimatorSet animatorSet = new AnimatorSet();
-
-					animatorSet.playTogether(animators);
-					animatorSet.setDuration(animationTimeIn);
-					animatorSet.addListener(new AnimationSetTracker() {
-						@Override
-						public void onAllAnimationsEnded () {
-							animationsComplete(AnimationState.SHOWING);
-						}
-					});
-
-					animatorSet.start();
+				if (transition.start(animationTimeIn, EasingInterpolator.QUINT_EASE_OUT) > 0) {
+					engine.setAnimationState(AnimationState.SHOWING);
 				}
 			} else {
-				int runningPermanentlyHiddenHeaderHeightSum = 0;
-				for (int i = 0; i < headerViews.size(); i++) {
-					if (headerViewsPermanentlyHidden.get(i)) {
-						runningPermanentlyHiddenHeaderHeightSum += headerViewHeights.get(i);
-					} else if (headerViewsShouldQuickReturn.get(i)) {
-						ViewHelper.setTranslationY(headerViews.get(i), -1 * runningPermanentlyHiddenHeaderHeightSum);
+				for (int i = 0; i < headerSlots.size(); i++) {
+					if (QuickReturnEngine.isQuickReturning(headerSlots, i)) {
+						moveQuickReturnView(headerViews.get(i), -1 * headerSlots.getPermanentlyHiddenOffset(i));
 					}
 				}
 
-				int runningPermanentlyHiddenFooterHeightSum = 0;
-				for (int i = 0; i < footerViews.size(); i++) {
-					if (footerViewsPermanentlyHidden.get(i)) {
-						runningPermanentlyHiddenFooterHeightSum += footerViewHeights.get(i);
-					} else if (footerViewsShouldQuickReturn.get(i)) {
-						ViewHelper.setTranslationY(footerViews.get(i), runningPermanentlyHiddenFooterHeightSum);
+				for (int i = 0; i < footerSlots.size(); i++) {
+					if (QuickReturnEngine.isQuickReturning(footerSlots, i)) {
+						moveQuickReturnView(footerViews.get(i), footerSlots.getPermanentlyHiddenOffset(i));
 					}
 				}
 			}
@@ -612,57 +1115,35 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param animated
 	 */
 	public void hideShownQuickReturns ( boolean animated ) {
-		if (animationState == AnimationState.SHOWN || animationState == AnimationState.HIDDEN) {
+		if (engine.isSettled()) {
 			if (animated) {
-				ArrayList<Animator> animators = new ArrayList<Animator>();
-				int runningHeaderHeightSum = 0;
-				int runningFooterHeightSum = 0;
-
-				for (int i = 0; i < headerViews.size(); i++) {
-					if (headerViewsShouldQuickReturn.get(i) || headerViewsPermanentlyHidden.get(i)) {
-						View view = headerViews.get(i);
-						runningHeaderHeightSum += headerViewHeights.get(i);
-						animators.add(Glider.glide(Skill.QuadEaseIn, animationTimeOut, ObjectAnimator.ofFloat(view, "translationY", -1 * runningHeaderHeightSum)));
+				transition.begin();
+
+				for (int i = 0; i < headerSlots.size(); i++) {
+					if (QuickReturnEngine.isHideable(headerSlots, i)) {
+						transition.queue(headerAnimators.get(i), -1 * headerSlots.getHideableOffset(i));
 					}
 				}
 
-				for (int i = 0; i < footerViews.size(); i++) {
-					if (footerViewsShouldQuickReturn.get(i) || footerViewsPermanentlyHidden.get(i)) {
-						View view = footerViews.get(i);
-						runningFooterHeightSum += footerViewHeights.get(i);
-						animators.add(Glider.glide(Skill.QuadEaseIn, animationTimeOut, ObjectAnimator.ofFloat(view, "translationY", runningFooterHeightSum)));
+				for (int i = 0; i < footerSlots.size(); i++) {
+					if (QuickReturnEngine.isHideable(footerSlots, i)) {
+						transition.queue(footerAnimators.get(i), footerSlots.getHideableOffset(i));
 					}
 				}
 
-				if (animators.size() > 0) {
-					animationState = AnimationState.HIDING;
-
-					AnimatorSet animatorSet = new AnimatorSet();
-					animatorSet.playTogether(animators);
-					animatorSet.setDuration(animationTimeOut);
-					animatorSet.addListener(new AnimationSetTracker() {
-						@Override
-						public void onAllAnimationsEnded () {
-							animationsComplete(AnimationState.HIDING);
-						}
-					});
-
-					animatorSet.start();
+				if (transition.start(animationTimeOut, EasingInterpolator.QUAD_EASE_IN) > 0) {
+					engine.setAnimationState(AnimationState.HIDING);
 				}
 			} else {
-				int runningHeaderHeightSum = 0;
-				for (int i = 0; i < headerViews.size(); i++) {
-					if (headerViewsShouldQuickReturn.get(i) || headerViewsPermanentlyHidden.get(i)) {
-						runningHeaderHeightSum += headerViewHeights.get(i);
-						ViewHelper.setTranslationY(headerViews.get(i), -1 * runningHeaderHeightSum);
+				for (int i = 0; i < headerSlots.size(); i++) {
+					if (QuickReturnEngine.isHideable(headerSlots, i)) {
+						moveQuickReturnView(headerViews.get(i), -1 * headerSlots.getHideableOffset(i));
 					}
 				}
 
-				int runningFooterHeightSum = 0;
-				for (int i = 0; i < footerViews.size(); i++) {
-					if (footerViewsShouldQuickReturn.get(i) || footerViewsPermanentlyHidden.get(i)) {
-						runningFooterHeightSum += footerViewHeights.get(i);
-						ViewHelper.setTranslationY(footerViews.get(i), runningFooterHeightSum);
+				for (int i = 0; i < footerSlots.size(); i++) {
+					if (QuickReturnEngine.isHideable(footerSlots, i)) {
+						moveQuickReturnView(footerViews.get(i), footerSlots.getHideableOffset(i));
 					}
 				}
 			}
@@ -686,56 +1167,45 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param animated
 	 */
 	public void permanentlyHideQuickReturnHeader ( int index, boolean animated ) {
-		if (index >= 0 && index < headerViews.size() && !headerViewsPermanentlyHidden.get(index)) {
-			headerViewsPermanentlyHidden.set(index, true);
+		if (index >= 0 && index < headerViews.size() && !headerSlots.hasFlag(index, QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN)) {
+			headerSlots.setFlag(index, QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN, true);
 
-			if (animationState == AnimationState.SHOWN || animationState == AnimationState.HIDDEN) {
+			if (engine.isSettled()) {
 				if (animated) {
-					ArrayList<Animator> animators = new ArrayList<Animator>();
+					transition.begin();
 					int runningHeaderHeightSum = 0;
 
-					for (int i = 0; i < headerViews.size(); i++) {
-						if (index == i || (headerViewsShouldQuickReturn.get(i) && !headerViewsPermanentlyHidden.get(i))) {
-							View view = headerViews.get(i);
-							runningHeaderHeightSum += headerViewHeights.get(i);
-							int currentTranslation = (int) ViewHelper.getTranslationY(view);
+					for (int i = 0; i < headerSlots.size(); i++) {
+						if (index == i || QuickReturnEngine.isQuickReturning(headerSlots, i)) {
+							TranslationAnimator animator = headerAnimators.get(i);
+							runningHeaderHeightSum += headerSlots.getHeight(i);
+							int currentTranslation = (int) animationBackend.getTranslationY(animator.getView());
 
 							if (i == index) {
-								animators.add(Glider.glide(Skill.QuadEaseIn, animationTimeOut, ObjectAnimator.ofFloat(view, "translationY", -1 * runningHeaderHeightSum)));
+								transition.queue(animator, -1 * runningHeaderHeightSum);
 							} else if (i > index) {
-								animators.add(Glider.glide(Skill.QuadEaseIn, animationTimeOut, ObjectAnimator.ofFloat(view, "translationY", currentTranslation - headerViewHeights.get(index))));
+								transition.queue(animator, currentTranslation - headerSlots.getHeight(index));
 							}
 						}
 					}
 
-					if (animators.size() > 0) {
-						animationState = AnimationState.HIDING;
-
-						AnimatorSet animatorSet = new AnimatorSet();
-						animatorSet.playTogether(animators);
-						animatorSet.setDuration(animationTimeOut);
-						animatorSet.addListener(new AnimationSetTracker() {
-							@Override
-							public void onAllAnimationsEnded () {
-								animationsComplete(AnimationState.HIDING);
-								setupView();
-							}
-						});
-
-						animatorSet.start();
+					if (transition.start(animationTimeOut, EasingInterpolator.QUAD_EASE_IN) > 0) {
+						// The other views stay shown or hidden, so the state from before applies again once done.
+						animationStateAfterTransition = engine.getAnimationState();
+						engine.setAnimationState(AnimationState.HIDING);
 					}
 				} else {
 					int runningHeaderHeightSum = 0;
 					for (int i = 0; i < headerViews.size(); i++) {
-						if (index == i || (headerViewsShouldQuickReturn.get(i) && !headerViewsPermanentlyHidden.get(i))) {
+						if (index == i || QuickReturnEngine.isQuickReturning(headerSlots, i)) {
 							View view = headerViews.get(i);
-							runningHeaderHeightSum += headerViewHeights.get(i);
-							int currentTranslation = (int) ViewHelper.getTranslationY(view);
+							runningHeaderHeightSum += headerSlots.getHeight(i);
+							int currentTranslation = (int) animationBackend.getTranslationY(view);
 
 							if (i == index) {
-								ViewHelper.setTranslationY(headerViews.get(i), -1 * runningHeaderHeightSum);
+								moveQuickReturnView(headerViews.get(i), -1 * runningHeaderHeightSum);
 							} else if (i > index) {
-								ViewHelper.setTranslationY(headerViews.get(i), currentTranslation - headerViewHeights.get(index));
+								moveQuickReturnView(headerViews.get(i), currentTranslation - headerSlots.getHeight(index));
 							}
 						}
 					}
@@ -763,52 +1233,41 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param animated
 	 */
 	public void showPermanentlyHiddenQuickReturnHeader ( int index, boolean animated ) {
-		if (index >= 0 && index < headerViews.size() && headerViewsPermanentlyHidden.get(index)) {
-			headerViewsPermanentlyHidden.set(index, false);
+		if (index >= 0 && index < headerViews.size() && headerSlots.hasFlag(index, QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN)) {
+			headerSlots.setFlag(index, QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN, false);
 
-			if (animationState == AnimationState.SHOWN || animationState == AnimationState.HIDDEN) {
+			if (engine.isSettled()) {
 				if (animated) {
-					ArrayList<Animator> animators = new ArrayList<Animator>();
+					transition.begin();
 
-					for (int i = 0; i < headerViews.size(); i++) {
-						if (index == i || (headerViewsShouldQuickReturn.get(i) && !headerViewsPermanentlyHidden.get(i))) {
-							View view = headerViews.get(i);
-							int currentTranslation = (int) ViewHelper.getTranslationY(view);
+					for (int i = 0; i < headerSlots.size(); i++) {
+						if (index == i || QuickReturnEngine.isQuickReturning(headerSlots, i)) {
+							TranslationAnimator animator = headerAnimators.get(i);
+							int currentTranslation = (int) animationBackend.getTranslationY(animator.getView());
 
 							if (i == index) {
-								animators.add(Glider.glide(Skill.QuadEaseOut, animationTimeIn, ObjectAnimator.ofFloat(view, "translationY", 0)));
+								transition.queue(animator, 0);
 							} else if (i > index) {
-								animators.add(Glider.glide(Skill.QuadEaseOut, animationTimeIn, ObjectAnimator.ofFloat(view, "translationY", currentTranslation + headerViewHeights.get(index))));
+								transition.queue(animator, currentTranslation + headerSlots.getHeight(index));
 							}
 						}
 					}
 
-					if (animators.size() > 0) {
-						animationState = AnimationState.SHOWING;
-
-						AnimatorSet animatorSet = new AnimatorSet();
-						animatorSet.playTogether(animators);
-						animatorSet.setDuration(animationTimeIn);
-						animatorSet.addListener(new AnimationSetTracker() {
-							@Override
-							public void onAllAnimationsEnded () {
-								animationsComplete(AnimationState.SHOWING);
-								setupView();
-							}
-						});
-
-						animatorSet.start();
+					if (transition.start(animationTimeIn, EasingInterpolator.QUAD_EASE_OUT) > 0) {
+						// The other views stay shown or hidden, so the state from before applies again once done.
+						animationStateAfterTransition = engine.getAnimationState();
+						engine.setAnimationState(AnimationState.SHOWING);
 					}
 				} else {
 					for (int i = 0; i < headerViews.size(); i++) {
-						if (index == i || (headerViewsShouldQuickReturn.get(i) && !headerViewsPermanentlyHidden.get(i))) {
+						if (index == i || QuickReturnEngine.isQuickReturning(headerSlots, i)) {
 							View view = headerViews.get(i);
-							int currentTranslation = (int) ViewHelper.getTranslationY(view);
+							int currentTranslation = (int) animationBackend.getTranslationY(view);
 
 							if (i == index) {
-								ViewHelper.setTranslationY(headerViews.get(i), 0);
+								moveQuickReturnView(headerViews.get(i), 0);
 							} else if (i > index) {
-								ViewHelper.setTranslationY(headerViews.get(i), currentTranslation + headerViewHeights.get(index));
+								moveQuickReturnView(headerViews.get(i), currentTranslation + headerSlots.getHeight(index));
 							}
 						}
 					}
@@ -836,56 +1295,45 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param animated
 	 */
 	public void permanentlyHideQuickReturnFooter ( int index, boolean animated ) {
-		if (index >= 0 && index < footerViews.size() && !footerViewsPermanentlyHidden.get(index)) {
-			footerViewsPermanentlyHidden.set(index, true);
+		if (index >= 0 && index < footerViews.size() && !footerSlots.hasFlag(index, QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN)) {
+			footerSlots.setFlag(index, QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN, true);
 
-			if (animationState == AnimationState.SHOWN || animationState == AnimationState.HIDDEN) {
+			if (engine.isSettled()) {
 				if (animated) {
-					ArrayList<Animator> animators = new ArrayList<Animator>();
+					transition.begin();
 					int runningFooterHeightSum = 0;
 
-					for (int i = 0; i < footerViews.size(); i++) {
-						if (index == i || (footerViewsShouldQuickReturn.get(i) && !footerViewsPermanentlyHidden.get(i))) {
-							View view = footerViews.get(i);
-							runningFooterHeightSum += footerViewHeights.get(i);
-							int currentTranslation = (int) ViewHelper.getTranslationY(view);
+					for (int i = 0; i < footerSlots.size(); i++) {
+						if (index == i || QuickReturnEngine.isQuickReturning(footerSlots, i)) {
+							TranslationAnimator animator = footerAnimators.get(i);
+							runningFooterHeightSum += footerSlots.getHeight(i);
+							int currentTranslation = (int) animationBackend.getTranslationY(animator.getView());
 
 							if (i == index) {
-								animators.add(Glider.glide(Skill.QuadEaseIn, animationTimeOut, ObjectAnimator.ofFloat(view, "translationY", runningFooterHeightSum)));
+								transition.queue(animator, runningFooterHeightSum);
 							} else if (i > index) {
-								animators.add(Glider.glide(Skill.QuadEaseIn, animationTimeOut, ObjectAnimator.ofFloat(view, "translationY", currentTranslation + footerViewHeights.get(index))));
+								transition.queue(animator, currentTranslation + footerSlots.getHeight(index));
 							}
 						}
 					}
 
-					if (animators.size() > 0) {
-						animationState = AnimationState.HIDING;
-
-						AnimatorSet animatorSet = new AnimatorSet();
-						animatorSet.playTogether(animators);
-						animatorSet.setDuration(animationTimeOut);
-						animatorSet.addListener(new AnimationSetTracker() {
-							@Override
-							public void onAllAnimationsEnded () {
-								animationsComplete(AnimationState.HIDING);
-								setupView();
-							}
-						});
-
-						animatorSet.start();
+					if (transition.start(animationTimeOut, EasingInterpolator.QUAD_EASE_IN) > 0) {
+						// The other views stay shown or hidden, so the state from before applies again once done.
+						animationStateAfterTransition = engine.getAnimationState();
+						engine.setAnimationState(AnimationState.HIDING);
 					}
 				} else {
 					int runningFooterHeightSum = 0;
 					for (int i = 0; i < footerViews.size(); i++) {
-						if (index == i || (footerViewsShouldQuickReturn.get(i) && !footerViewsPermanentlyHidden.get(i))) {
+						if (index == i || QuickReturnEngine.isQuickReturning(footerSlots, i)) {
 							View view = footerViews.get(i);
-							runningFooterHeightSum += footerViewHeights.get(i);
-							int currentTranslation = (int) ViewHelper.getTranslationY(view);
+							runningFooterHeightSum += footerSlots.getHeight(i);
+							int currentTranslation = (int) animationBackend.getTranslationY(view);
 
 							if (i == index) {
-								ViewHelper.setTranslationY(footerViews.get(i), runningFooterHeightSum);
+								moveQuickReturnView(footerViews.get(i), runningFooterHeightSum);
 							} else if (i > index) {
-								ViewHelper.setTranslationY(footerViews.get(i), currentTranslation + footerViewHeights.get(index));
+								moveQuickReturnView(footerViews.get(i), currentTranslation + footerSlots.getHeight(index));
 							}
 						}
 					}
@@ -913,52 +1361,41 @@ public class QuickReturnContainer extends RelativeLayout {
 	 * @param animated
 	 */
 	public void showPermanentlyHiddenQuickReturnFooter ( int index, boolean animated ) {
-		if (index >= 0 && index < footerViews.size() && footerViewsPermanentlyHidden.get(index)) {
-			footerViewsPermanentlyHidden.set(index, false);
+		if (index >= 0 && index < footerViews.size() && footerSlots.hasFlag(index, QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN)) {
+			footerSlots.setFlag(index, QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN, false);
 
-			if (animationState == AnimationState.SHOWN || animationState == AnimationState.HIDDEN) {
+			if (engine.isSettled()) {
 				if (animated) {
-					ArrayList<Animator> animators = new ArrayList<Animator>();
+					transition.begin();
 
-					for (int i = 0; i < footerViews.size(); i++) {
-						if (index == i || (footerViewsShouldQuickReturn.get(i) && !footerViewsPermanentlyHidden.get(i))) {
-							View view = footerViews.get(i);
-							int currentTranslation = (int) ViewHelper.getTranslationY(view);
+					for (int i = 0; i < footerSlots.size(); i++) {
+						if (index == i || QuickReturnEngine.isQuickReturning(footerSlots, i)) {
+							TranslationAnimator animator = footerAnimators.get(i);
+							int currentTranslation = (int) animationBackend.getTranslationY(animator.getView());
 
 							if (i == index) {
-								animators.add(Glider.glide(Skill.QuadEaseOut, animationTimeIn, ObjectAnimator.ofFloat(view, "translationY", 0)));
+								transition.queue(animator, 0);
 							} else if (i > index) {
-								animators.add(Glider.glide(Skill.QuadEaseOut, animationTimeIn, ObjectAnimator.ofFloat(view, "translationY", currentTranslation - footerViewHeights.get(index))));
+								transition.queue(animator, currentTranslation - footerSlots.getHeight(index));
 							}
 						}
 					}
 
-					if (animators.size() > 0) {
-						animationState = AnimationState.SHOWING;
-
-						AnimatorSet animatorSet = new AnimatorSet();
-						animatorSet.playTogether(animators);
-						animatorSet.setDuration(animationTimeIn);
-						animatorSet.addListener(new AnimationSetTracker() {
-							@Override
-							public void onAllAnimationsEnded () {
-								animationsComplete(AnimationState.SHOWING);
-								setupView();
-							}
-						});
-
-						animatorSet.start();
+					if (transition.start(animationTimeIn, EasingInterpolator.QUAD_EASE_OUT) > 0) {
+						// The other views stay shown or hidden, so the state from before applies again once done.
+						animationStateAfterTransition = engine.getAnimationState();
+						engine.setAnimationState(AnimationState.SHOWING);
 					}
 				} else {
 					for (int i = 0; i < footerViews.size(); i++) {
-						if (index == i || (footerViewsShouldQuickReturn.get(i) && !footerViewsPermanentlyHidden.get(i))) {
+						if (index == i || QuickReturnEngine.isQuickReturning(footerSlots, i)) {
 							View view = footerViews.get(i);
-							int currentTranslation = (int) ViewHelper.getTranslationY(view);
+							int currentTranslation = (int) animationBackend.getTranslationY(view);
 
 							if (i == index) {
-								ViewHelper.setTranslationY(footerViews.get(i), 0);
+								moveQuickReturnView(footerViews.get(i), 0);
 							} else if (i > index) {
-								ViewHelper.setTranslationY(footerViews.get(i), currentTranslation - footerViewHeights.get(index));
+								moveQuickReturnView(footerViews.get(i), currentTranslation - footerSlots.getHeight(index));
 							}
 						}
 					}
@@ -981,259 +1418,899 @@ public class QuickReturnContainer extends RelativeLayout {
 	@Override
 	protected void onLayout ( boolean changed, int l, int t, int r, int b ) {
 		if (changed) {
-			setupView();
+			if (tracksQuickReturnViewLayouts()) {
+				// Laid out views report their own height changes, only gone ones depend on our width changing.
+				quickReturnViewHeightsChanged |= recalculateQuickReturnViewHeights();
+			} else {
+				setupView();
+			}
 		}
 
+		layingOutQuickReturnViews = true;
 		super.onLayout(changed, l, t, r, b);
+		layingOutQuickReturnViews = false;
+
+		if (quickReturnViewHeightsChanged) {
+			quickReturnViewHeightsChanged = false;
+			applyQuickReturnViewHeights();
+		}
+	}
+
+	/**
+	 * Saves whether the quick returned views are shown, where they are, which are permanently hidden, the scroll tally
+	 * and the offsets tracked for the active observed view. Mid transition, the state it's heading for is saved.
+	 *
+	 * @return
+	 */
+	@Override
+	protected Parcelable onSaveInstanceState () {
+		SavedState savedState = new SavedState(super.onSaveInstanceState());
+
+		if (scrollFrameCoalescer != null) {
+			scrollFrameCoalescer.flush();
+		}
+
+		AnimationState animationState = engine.getAnimationState();
+		if (engine.isSettled()) {
+			readTranslations();
+			savedState.headerTranslations = ObservedViewState.saveTranslations(headerSlots, new float[headerSlots.size()]);
+			savedState.footerTranslations = ObservedViewState.saveTranslations(footerSlots, new float[footerSlots.size()]);
+		} else if (animationStateAfterTransition != null) {
+			animationState = animationStateAfterTransition;
+		} else {
+			animationState = animationState == AnimationState.HIDING ? AnimationState.HIDDEN : AnimationState.SHOWN;
+		}
+
+		savedState.animationState = animationState.ordinal();
+		savedState.headerFlags = copySlotFlags(headerSlots);
+		savedState.footerFlags = copySlotFlags(footerSlots);
+
+		ScrollTally scrollTally = engine.getScrollTally();
+		savedState.runningTally = scrollTally.getRunningTally();
+		savedState.lastSignificantDirection = scrollTally.getLastSignificantDirection();
+		savedState.lastScrollY = lastScrollY;
+
+		if (activeObservedViewState != null) {
+			if (activeObservedViewState.recyclerViewOnScrollListener != null) {
+				savedState.observedViewScrollY = activeObservedViewState.recyclerViewOnScrollListener.getRunningY();
+			} else if (activeObservedViewState.listViewOnScrollListener instanceof AbsOnScrollListenerWrapper) {
+				savedState.observedViewScrollY = ((AbsOnScrollListenerWrapper) activeObservedViewState.listViewOnScrollListener).getLastScrollY();
+			}
+
+			if (scrollYProvider instanceof IndexedScrollYProvider) {
+				savedState.scrollYProviderState = ((IndexedScrollYProvider) scrollYProvider).onSaveInstanceState();
+			}
+		}
+
+		return savedState;
+	}
+
+	/**
+	 * Puts back what onSaveInstanceState saved. Views should be attached and observed beforehand, as they are when set
+	 * up while creating the layout. The quick returned views are put where they were as soon as their heights are
+	 * known, without animating, and are only restored if the same number of headers and footers is attached.
+	 *
+	 * @param state
+	 */
+	@Override
+	protected void onRestoreInstanceState ( Parcelable state ) {
+		if (!(state instanceof SavedState)) {
+			super.onRestoreInstanceState(state);
+			return;
+		}
+
+		SavedState savedState = (SavedState) state;
+		super.onRestoreInstanceState(savedState.getSuperState());
+
+		engine.getScrollTally().restore(savedState.runningTally, savedState.lastSignificantDirection);
+		lastScrollY = savedState.lastScrollY;
+
+		if (activeObservedViewState != null) {
+			if (activeObservedViewState.recyclerViewOnScrollListener != null) {
+				activeObservedViewState.recyclerViewOnScrollListener.setRunningY((int) savedState.observedViewScrollY);
+			} else if (activeObservedViewState.listViewOnScrollListener instanceof AbsOnScrollListenerWrapper) {
+				((AbsOnScrollListenerWrapper) activeObservedViewState.listViewOnScrollListener).setLastScrollY(savedState.observedViewScrollY);
+			}
+
+			if (scrollYProvider instanceof IndexedScrollYProvider && savedState.scrollYProviderState != null) {
+				((IndexedScrollYProvider) scrollYProvider).onRestoreInstanceState(savedState.scrollYProviderState);
+			}
+		}
+
+		if (engine.isSettled() && savedState.headerFlags.length == headerSlots.size() && savedState.footerFlags.length == footerSlots.size()) {
+			restoreSlotFlags(headerSlots, savedState.headerFlags);
+			restoreSlotFlags(footerSlots, savedState.footerFlags);
+
+			restoredAnimationState = AnimationState.values()[savedState.animationState];
+			restoredHeaderTranslations = savedState.headerTranslations;
+			restoredFooterTranslations = savedState.footerTranslations;
+			engine.setAnimationState(restoredAnimationState);
+
+			if (ViewCompat.isLaidOut(this)) {
+				// Heights are already known, otherwise the first layout puts the views in place.
+				applyQuickReturnViewHeights();
+			}
+		}
+	}
+
+	protected static int[] copySlotFlags ( QuickReturnSlots slots ) {
+		int[] flags = new int[slots.size()];
+		for (int i = 0; i < flags.length; i++) {
+			flags[i] = slots.getFlags(i);
+		}
+
+		return flags;
+	}
+
+	/**
+	 * Only permanent hiding is restored, the rest is up to how the views were attached.
+	 *
+	 * @param slots
+	 * @param flags
+	 */
+	protected static void restoreSlotFlags ( QuickReturnSlots slots, int[] flags ) {
+		for (int i = 0; i < flags.length; i++) {
+			slots.setFlag(i, QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN, (flags[i] & QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN) != 0);
+		}
+	}
+
+	@Override
+	protected void onAttachedToWindow () {
+		super.onAttachedToWindow();
+
+		// Lists observe their adapters again on their next scroll event.
+		for (int i = 0; i < observedViewStates.size(); i++) {
+			ObservedViewState state = observedViewStates.get(i);
+
+			if (state.recyclerViewOnScrollListener != null) {
+				state.recyclerViewOnScrollListener.observeAdapter(((RecyclerView) state.view).getAdapter());
+			}
+		}
+	}
+
+	@Override
+	protected void onDetachedFromWindow () {
+		super.onDetachedFromWindow();
+
+		// The observed views come back with the container, so they stay observed, but adapters outliving it shouldn't
+		// keep it or its height caches reachable.
+		cancelPendingWork();
+
+		for (int i = 0; i < observedViewStates.size(); i++) {
+			releaseObservedViewCaches(observedViewStates.get(i));
+		}
+
+		nestedScrollingChildHelper.onDetachedFromWindow();
+		restoreLayers();
+	}
+
+	/**
+	 * Cancels running transitions and scheduled frame and idle callbacks.
+	 */
+	protected void cancelPendingWork () {
+		if (scrollFrameCoalescer != null) {
+			scrollFrameCoalescer.cancel();
+		}
+
+		removeCallbacks(idleRunnable);
+		transition.cancel();
+
+		for (int i = 0; i < headerAnimators.size(); i++) {
+			headerAnimators.get(i).cancel();
+		}
+
+		for (int i = 0; i < footerAnimators.size(); i++) {
+			footerAnimators.get(i).cancel();
+		}
+	}
+
+	/**
+	 * Stops observing every observed view, releasing the caches, adapter observers and listeners held for each.
+	 */
+	protected void releaseObservedViews () {
+		if (scrollFrameCoalescer != null) {
+			scrollFrameCoalescer.cancel();
+		}
+
+		for (int i = 0; i < observedViewStates.size(); i++) {
+			releaseObservedViewState(observedViewStates.get(i));
+		}
+
+		observedViewStates.clear();
+		activeObservedViewState = null;
+		observedView = null;
+		scrollYProvider = null;
+	}
+
+	/**
+	 * Releases caches, adapter observers and listeners held for an observed view.
+	 *
+	 * @param state
+	 */
+	protected void releaseObservedViewState ( ObservedViewState state ) {
+		releaseObservedViewCaches(state);
+
+		if (state.recyclerViewOnScrollListener != null) {
+			((RecyclerView) state.view).removeOnScrollListener(state.recyclerViewOnScrollListener);
+		}
+
+		if (state.listViewOnScrollListeners != null) {
+			// The list's composite holds the container's own listeners too, which would otherwise go on hearing it.
+			state.listViewOnScrollListeners.clearOnScrollListeners();
+			((AbsListView) state.view).setOnScrollListener(null);
+		}
+
+		if (state.view instanceof ObservableScrollView) {
+			((ObservableScrollView) state.view).setOnScrollListener(null);
+			((ObservableScrollView) state.view).setOnFlingListener(null);
+		}
+	}
+
+	/**
+	 * Releases the height cache and adapter observers held for an observed view, which are set up again when it next
+	 * scrolls.
+	 *
+	 * @param state
+	 */
+	protected void releaseObservedViewCaches ( ObservedViewState state ) {
+		if (state.scrollYProvider instanceof IndexedScrollYProvider) {
+			((IndexedScrollYProvider) state.scrollYProvider).release();
+		}
+
+		if (state.recyclerViewOnScrollListener != null) {
+			state.recyclerViewOnScrollListener.observeAdapter(null);
+		}
 	}
 
 	public void setupView () {
+		long start = metrics != null ? System.nanoTime() : 0;
+		translationsChanged = true;
+
 		recalculateQuickReturnViewHeights();
+		applyQuickReturnViewHeights();
+
+		if (metrics != null) {
+			metrics.onSetupView(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Positions the content and the quick returned views for the current slot heights.
+	 */
+	protected void applyQuickReturnViewHeights () {
 		setupMargins();
+
+		if (restoredAnimationState != null) {
+			applyRestoredTranslations();
+		} else {
+			hideShownQuickReturns(false);
+			showHiddenQuickReturns(false);
+		}
+	}
+
+	/**
+	 * Puts the quick returned views back where they were saved, limited to how far they can move with their current
+	 * heights. Hidden views stay entirely hidden even if they got taller.
+	 */
+	protected void applyRestoredTranslations () {
+		AnimationState animationState = restoredAnimationState;
+		restoredAnimationState = null;
+
+		// Every hideable view starts out of view, which is where permanently hidden ones stay.
 		hideShownQuickReturns(false);
-		showHiddenQuickReturns(false);
+
+		if (animationState == AnimationState.SHOWN) {
+			for (int i = 0; i < headerSlots.size(); i++) {
+				if (QuickReturnEngine.isQuickReturning(headerSlots, i)) {
+					float translation = restoredHeaderTranslations != null ? restoredHeaderTranslations[i] : 0;
+					translation = Math.max(-1 * headerSlots.getHideableOffset(i), Math.min(-1 * headerSlots.getPermanentlyHiddenOffset(i), translation));
+					moveQuickReturnView(headerViews.get(i), translation);
+				}
+			}
+
+			for (int i = 0; i < footerSlots.size(); i++) {
+				if (QuickReturnEngine.isQuickReturning(footerSlots, i)) {
+					float translation = restoredFooterTranslations != null ? restoredFooterTranslations[i] : 0;
+					translation = Math.min(footerSlots.getHideableOffset(i), Math.max(footerSlots.getPermanentlyHiddenOffset(i), translation));
+					moveQuickReturnView(footerViews.get(i), translation);
+				}
+			}
+		}
+
+		restoredHeaderTranslations = null;
+		restoredFooterTranslations = null;
+		readTranslations();
+	}
+
+	/**
+	 * Whether the heights of laid out views are kept up to date by listening for their layout changes, rather than
+	 * being measured all over again on every setup.
+	 *
+	 * @return
+	 */
+	protected boolean tracksQuickReturnViewLayouts () {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB;
+	}
+
+	protected void trackQuickReturnViewHeight ( View view ) {
+		if (tracksQuickReturnViewLayouts()) {
+			if (quickReturnViewLayoutListener == null) {
+				quickReturnViewLayoutListener = new View.OnLayoutChangeListener() {
+					@Override
+					public void onLayoutChange ( View view, int left, int top, int right, int bottom, int oldLeft, int oldTop, int oldRight, int oldBottom ) {
+						if (bottom - top != oldBottom - oldTop) {
+							onQuickReturnViewHeightChanged(view);
+						}
+					}
+				};
+			}
+
+			view.addOnLayoutChangeListener(quickReturnViewLayoutListener);
+		}
+	}
+
+	protected void untrackQuickReturnViewHeight ( View view ) {
+		if (quickReturnViewLayoutListener != null) {
+			view.removeOnLayoutChangeListener(quickReturnViewLayoutListener);
+		}
 	}
 
-	protected void recalculateQuickReturnViewHeights () {
-		headerViewHeights.clear();
-		for (View view : headerViews) {
-			LayoutParams layoutParams = (LayoutParams) view.getLayoutParams();
+	/**
+	 * Updates the slot of a single view whose laid out height changed. Changes reported while we're laying out our
+	 * children are applied together once they're all in place.
+	 *
+	 * @param view
+	 */
+	protected void onQuickReturnViewHeightChanged ( View view ) {
+		int index = headerViews.indexOf(view);
+		if (index >= 0) {
+			headerSlots.setHeight(index, getQuickReturnViewHeight(view));
+		} else {
+			index = footerViews.indexOf(view);
+			if (index < 0) {
+				return;
+			}
+
+			footerSlots.setHeight(index, getQuickReturnViewHeight(view));
+		}
+
+		if (metrics != null) {
+			metrics.onHeightsRecalculated();
+		}
+
+		if (layingOutQuickReturnViews) {
+			quickReturnViewHeightsChanged = true;
+		} else {
+			applyQuickReturnViewHeights();
+		}
+	}
+
+	/**
+	 * Measures the views whose heights aren't tracked through layout changes. That's every view before Honeycomb, and
+	 * only the gone ones after.
+	 *
+	 * @return Whether any height changed.
+	 */
+	protected boolean recalculateQuickReturnViewHeights () {
+		if (metrics != null) {
+			metrics.onHeightsRecalculated();
+		}
+
+		boolean tracked = tracksQuickReturnViewLayouts();
+		boolean changed = false;
+
+		for (int i = 0; i < headerViews.size(); i++) {
+			View view = headerViews.get(i);
+			if (!tracked || view.getVisibility() == GONE) {
+				int height = getQuickReturnViewHeight(view);
+				changed |= height != headerSlots.getHeight(i);
+				headerSlots.setHeight(i, height);
+			}
+		}
 
-			int previousVisibility = view.getVisibility();
-			view.setVisibility(VISIBLE);
-			headerViewHeights.add(view.getMeasuredHeight() + layoutParams.topMargin + layoutParams.bottomMargin);
-			view.setVisibility(previousVisibility);
+		for (int i = 0; i < footerViews.size(); i++) {
+			View view = footerViews.get(i);
+			if (!tracked || view.getVisibility() == GONE) {
+				int height = getQuickReturnViewHeight(view);
+				changed |= height != footerSlots.getHeight(i);
+				footerSlots.setHeight(i, height);
+			}
 		}
 
-		footerViewHeights.clear();
-		for (View view : footerViews) {
-			LayoutParams layoutParams = (LayoutParams) view.getLayoutParams();
+		return changed;
+	}
+
+	protected int getQuickReturnViewHeight ( View view ) {
+		LayoutParams layoutParams = (LayoutParams) view.getLayoutParams();
+		if (layoutParams == null) {
+			// Not added to us yet, it'll report its height once laid out.
+			return 0;
+		}
 
-			int previousVisibility = view.getVisibility();
-			view.setVisibility(VISIBLE);
-			footerViewHeights.add(view.getMeasuredHeight() + layoutParams.topMargin + layoutParams.bottomMargin);
-			view.setVisibility(previousVisibility);
+		if (view.getVisibility() == GONE && getWidth() > 0) {
+			// Gone views are skipped when measuring our children, so measure it here rather than showing it for a pass.
+			int widthMeasureSpec = getChildMeasureSpec(MeasureSpec.makeMeasureSpec(getWidth(), MeasureSpec.EXACTLY), getPaddingLeft() + getPaddingRight() + layoutParams.leftMargin + layoutParams.rightMargin, layoutParams.width);
+			int heightMeasureSpec = layoutParams.height >= 0 ? MeasureSpec.makeMeasureSpec(layoutParams.height, MeasureSpec.EXACTLY) : MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+			view.measure(widthMeasureSpec, heightMeasureSpec);
 		}
+
+		return view.getMeasuredHeight() + layoutParams.topMargin + layoutParams.bottomMargin;
+	}
+
+	protected static int getSlotFlags ( boolean shouldQuickReturn, boolean rendersOverList, boolean permanentlyHidden ) {
+		return (shouldQuickReturn ? QuickReturnSlots.FLAG_SHOULD_QUICK_RETURN : 0) | (rendersOverList ? QuickReturnSlots.FLAG_RENDER_OVER_LIST : 0) | (permanentlyHidden ? QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN : 0);
 	}
 
 	protected void setupMargins () {
 		int runningHeaderHeightSum = 0;
-		for (int i = 0; i < headerViews.size(); i++) {
-			if (!headerViewsRenderOverList.get(i) && !headerViewsPermanentlyHidden.get(i)) {
-				runningHeaderHeightSum += headerViewHeights.get(i);
+		for (int i = 0; i < headerSlots.size(); i++) {
+			if ((headerSlots.getFlags(i) & (QuickReturnSlots.FLAG_RENDER_OVER_LIST | QuickReturnSlots.FLAG_PERMANENTLY_HIDDEN)) == 0) {
+				runningHeaderHeightSum += headerSlots.getHeight(i);
 			}
 		}
 
 		if (offsetView != null) {
 			int offsetTotal = Math.max(0, runningHeaderHeightSum - headerOverlap);
-			offsetView.setMinimumHeight(offsetTotal);
+			if (offsetTotal != appliedOffsetTotal) {
+				// Setting it requests a layout even when it's the same.
+				offsetView.setMinimumHeight(offsetTotal);
+				appliedOffsetTotal = offsetTotal;
+			}
+
 			if (onMarginRecalculatedListener != null) {
 				onMarginRecalculatedListener.onMarginRecalculated(offsetTotal);
 			}
 		}
 	}
 
-	protected void setQuickReturnViewAnimations ( int y, int oldY ) {
-		if (y > oldY) {
-			hideShownQuickReturns(true);
-		} else if (y < oldY) {
-			showHiddenQuickReturns(true);
+	protected void animationsComplete ( AnimationState fromDirection ) {
+		engine.completeTransition(fromDirection);
+	}
+
+	protected void dispatchScrollStateChanged ( int i ) {
+		if (scrollFrameCoalescer != null) {
+			scrollFrameCoalescer.flush();
 		}
+
+		handleScrollStateChanged(i);
 	}
 
-	protected void animationsComplete ( AnimationState fromDirection ) {
-		if (fromDirection == AnimationState.SHOWING) {
-			animationState = AnimationState.SHOWN;
+	/**
+	 * @param y
+	 * @param oldY
+	 * @param deltas
+	 * 		Whether y is the distance scrolled from an oldY of 0, as reported in huge list mode, rather than an offset.
+	 */
+	protected void dispatchScrollChanged ( int y, int oldY, boolean deltas ) {
+		if (followNestedScrolling && nestedScrollTarget != null) {
+			// Already handled and counted as it was reported through nested scrolling.
+			return;
+		}
+
+		if (deltas) {
+			lastScrollY += y - oldY;
 		} else {
-			animationState = AnimationState.HIDDEN;
+			// Also clears any drift from following nested scrolling.
+			lastScrollY = y;
+		}
+
+		if (metrics != null) {
+			metrics.onScrollEventReceived();
+		}
+
+		if (scrollFrameCoalescer != null) {
+			scrollFrameCoalescer.add(y, oldY);
+		} else {
+			handleScrollChanged(y, oldY);
 		}
 	}
 
-	protected void setQuickReturnViewTranslations ( int y, int oldY ) {
-		if (animationState == AnimationState.HIDDEN || animationState == AnimationState.SHOWN) {
+	@Override
+	public boolean onStartNestedScroll ( View child, View target, int nestedScrollAxes ) {
+		// Accepted even when not followed, so it reaches a CoordinatorLayout or AppBarLayout further up. Its own
+		// forwarded scrolling coming back through a QuickReturnBehavior isn't.
+		return target != this && (nestedScrollAxes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0;
+	}
 
-			int runningHeaderHeightSum = 0;
-			int runningPermanentlyHiddenHeaderHeightSum = 0;
-			float diff = oldY - y;
-			for (int i = 0; i < headerViews.size(); i++) {
-				if (headerViewsPermanentlyHidden.get(i)) {
-					runningPermanentlyHiddenHeaderHeightSum += headerViewHeights.get(i);
-					runningHeaderHeightSum += headerViewHeights.get(i);
-				} else if (headerViewsShouldQuickReturn.get(i)) {
-					View view = headerViews.get(i);
-					int height = headerViewHeights.get(i);
-					float currentTranslation = ViewHelper.getTranslationY(view);
+	@Override
+	public void onNestedScrollAccepted ( View child, View target, int nestedScrollAxes ) {
+		nestedScrollingParentHelper.onNestedScrollAccepted(child, target, nestedScrollAxes);
 
-					runningHeaderHeightSum += height;
+		// Only passed on when scrolled by one of its own children. A sibling's scrolling handed over by a
+		// QuickReturnBehavior has already reached the CoordinatorLayout, which would hand it straight back.
+		if (child.getParent() == this) {
+			forwardingNestedScroll = startNestedScroll(nestedScrollAxes);
+		}
 
-					if (runningHeaderHeightSum > 0) {
-						diff *= 1.0f + ((float) height / (float) runningHeaderHeightSum);
-					}
+		if ((followNestedScrolling || engine.isPredictingFlings()) && target == observedView) {
+			nestedScrollTarget = target;
+		}
 
-					setQuickReturnTranslation(view, currentTranslation, diff, -1 * runningHeaderHeightSum, -1 * runningPermanentlyHiddenHeaderHeightSum);
-				}
-			}
+		if (scrollFrameCoalescer != null) {
+			scrollFrameCoalescer.flush();
+		}
+	}
 
-			int runningFooterHeightSum = 0;
-			int runningPermanentlyHiddenFooterHeightSum = 0;
-			diff = y - oldY;
-			for (int i = 0; i < footerViews.size(); i++) {
-				if (footerViewsPermanentlyHidden.get(i)) {
-					runningPermanentlyHiddenFooterHeightSum += footerViewHeights.get(i);
-					runningFooterHeightSum += footerViewHeights.get(i);
-				} else if (footerViewsShouldQuickReturn.get(i)) {
-					View view = footerViews.get(i);
-					int height = footerViewHeights.get(i);
-					float currentTranslation = ViewHelper.getTranslationY(view);
-
-					if (runningFooterHeightSum > 0) {
-						diff *= 1.0f + ((float) height / (float) runningFooterHeightSum);
-					}
+	@Override
+	public void onStopNestedScroll ( View target ) {
+		nestedScrollingParentHelper.onStopNestedScroll(target);
+		nestedScrollTarget = null;
 
-					runningFooterHeightSum += height;
+		if (forwardingNestedScroll) {
+			forwardingNestedScroll = false;
+			stopNestedScroll();
+		}
+	}
 
-					setQuickReturnTranslation(view, currentTranslation, diff, runningPermanentlyHiddenFooterHeightSum, runningFooterHeightSum);
-				}
+	@Override
+	public void onNestedScroll ( View target, int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed ) {
+		if (followNestedScrolling && dyConsumed != 0 && target == nestedScrollTarget) {
+			if (metrics != null) {
+				metrics.onScrollEventReceived();
 			}
+
+			// Uses what the content actually scrolled rather than what was asked for in onNestedPreScroll.
+			int oldY = lastScrollY;
+			lastScrollY += dyConsumed;
+			handleScrollChanged(lastScrollY, oldY);
+		}
+
+		if (forwardingNestedScroll) {
+			dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, null);
+		}
+	}
+
+	@Override
+	public void onNestedPreScroll ( View target, int dx, int dy, int[] consumed ) {
+		if (forwardingNestedScroll) {
+			dispatchNestedPreScroll(dx, dy, consumed, null);
 		}
 	}
 
-	protected void setQuickReturnTranslation ( View view, float currentTranslation, float diff, int min, int max ) {
-		if (animationState != AnimationState.SHOWING ) {
-			ViewHelper.setTranslationY(view, Math.min(Math.max(min, currentTranslation + (diff * parallaxEffect)), max));
+	@Override
+	public boolean onNestedFling ( View target, float velocityX, float velocityY, boolean consumed ) {
+		return forwardingNestedScroll && dispatchNestedFling(velocityX, velocityY, consumed);
+	}
+
+	@Override
+	public boolean onNestedPreFling ( View target, float velocityX, float velocityY ) {
+		if (target == nestedScrollTarget) {
+			handleFling(velocityY);
 		}
+
+		return forwardingNestedScroll && dispatchNestedPreFling(velocityX, velocityY);
 	}
 
-	protected boolean scrollTallySignificantEnough ( int y, int oldY ) {
-		int diff = oldY - y;
+	@Override
+	public int getNestedScrollAxes () {
+		return nestedScrollingParentHelper.getNestedScrollAxes();
+	}
 
-		if (diff > 0) {
-			// Scrolled up.
-			if (runningScrollTally < 0) {
-				runningScrollTally = 0;
-			}
+	@Override
+	public void setNestedScrollingEnabled ( boolean enabled ) {
+		nestedScrollingChildHelper.setNestedScrollingEnabled(enabled);
+	}
 
-			runningScrollTally += diff;
+	@Override
+	public boolean isNestedScrollingEnabled () {
+		return nestedScrollingChildHelper.isNestedScrollingEnabled();
+	}
 
-			if (runningScrollTally >= minDifferenceBeforeShow) {
-				lastSignificantScrollDirection = 1;
-				return true;
-			}
-		} else if (diff < 0) {
-			// Scrolled down.
-			if (runningScrollTally > 0) {
-				runningScrollTally = 0;
-			}
+	@Override
+	public boolean startNestedScroll ( int axes ) {
+		return nestedScrollingChildHelper.startNestedScroll(axes);
+	}
 
-			runningScrollTally += diff;
+	@Override
+	public void stopNestedScroll () {
+		nestedScrollingChildHelper.stopNestedScroll();
+	}
 
-			if (Math.abs(runningScrollTally) >= minDifferenceBeforeHide) {
-				lastSignificantScrollDirection = -1;
-				return true;
-			}
-		} else {
-			runningScrollTally = 0;
-		}
+	@Override
+	public boolean hasNestedScrollingParent () {
+		return nestedScrollingChildHelper.hasNestedScrollingParent();
+	}
 
-		return false;
+	@Override
+	public boolean dispatchNestedScroll ( int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed, int[] offsetInWindow ) {
+		return nestedScrollingChildHelper.dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, offsetInWindow);
 	}
 
-	protected void snapQuickReturnsToIntent ( boolean animated ) {
-		if (lastSignificantScrollDirection == -1) {
-			hideShownQuickReturns(animated);
-		} else if ( lastSignificantScrollDirection == 1 ) {
-			showHiddenQuickReturns(animated);
-		}
+	@Override
+	public boolean dispatchNestedPreScroll ( int dx, int dy, int[] consumed, int[] offsetInWindow ) {
+		return nestedScrollingChildHelper.dispatchNestedPreScroll(dx, dy, consumed, offsetInWindow);
 	}
 
-	protected void snapQuickReturnsToMidpoint ( boolean animated ) {
-		int runningPermanentlyHiddenHeaderHeightSum = 0;
-		for (int i = 0; i < headerViews.size(); i++) {
-			if (headerViewsPermanentlyHidden.get(i)) {
-				runningPermanentlyHiddenHeaderHeightSum += headerViewHeights.get(i);
-			} else if (headerViewsShouldQuickReturn.get(i)) {
-				float height = headerViewHeights.get(i);
-				float offset = Math.abs(ViewHelper.getTranslationY(headerViews.get(i)));
-
-				if (offset != runningPermanentlyHiddenHeaderHeightSum) {
-					if ((height * 0.75f) > (offset - runningPermanentlyHiddenHeaderHeightSum)) {
-						showHiddenQuickReturns(animated);
-					} else {
-						hideShownQuickReturns(animated);
-					}
+	@Override
+	public boolean dispatchNestedFling ( float velocityX, float velocityY, boolean consumed ) {
+		return nestedScrollingChildHelper.dispatchNestedFling(velocityX, velocityY, consumed);
+	}
 
-					return;
-				}
-			}
+	@Override
+	public boolean dispatchNestedPreFling ( float velocityX, float velocityY ) {
+		return nestedScrollingChildHelper.dispatchNestedPreFling(velocityX, velocityY);
+	}
+
+	protected void handleFling ( float velocityY ) {
+		if (!engine.isPredictingFlings()) {
+			return;
 		}
 
-		int runningPermanentlyHiddenFooterHeightSum = 0;
-		for (int i = 0; i < footerViews.size(); i++) {
-			if (footerViewsPermanentlyHidden.get(i)) {
-				runningPermanentlyHiddenFooterHeightSum += footerViewHeights.get(i);
-			} else if (footerViewsShouldQuickReturn.get(i)) {
-				float height = footerViewHeights.get(i);
-				float offset = Math.abs(ViewHelper.getTranslationY(footerViews.get(i)));
-
-				if (offset != runningPermanentlyHiddenFooterHeightSum) {
-					if ((height * 0.75f) > (offset - runningPermanentlyHiddenFooterHeightSum)) {
-						showHiddenQuickReturns(animated);
-					} else {
-						hideShownQuickReturns(animated);
-					}
+		if (flingPredictor == null) {
+			flingPredictor = new FlingPredictor(getResources().getDisplayMetrics().density, ViewConfiguration.getScrollFriction());
+		}
 
-					return;
-				}
-			}
+		if (scrollFrameCoalescer != null) {
+			scrollFrameCoalescer.flush();
+		}
+
+		int distance = flingPredictor.predictDistance(velocityY);
+
+		if (scrollTraceRecorder != null) {
+			scrollTraceRecorder.recordFling(engine, SystemClock.uptimeMillis(), distance);
+		}
+
+		int action = engine.onFling(distance);
+
+		if (scrollTraceRecorder != null) {
+			scrollTraceRecorder.recordHandled(engine);
 		}
+
+		performAction(action);
 	}
 
 	protected void handleScrollStateChanged ( int i ) {
-		if (enableQuickReturn && i == AbsListView.OnScrollListener.SCROLL_STATE_IDLE) {
-			runningScrollTally = 0;
-
-			if (revealListenerType == RevealListenerType.SCROLL) {
-				if (snapToIntent) {
-					snapQuickReturnsToIntent(true);
-				} else if (snapToMidpoint) {
-					snapQuickReturnsToMidpoint(true);
-				}
+		if (i == AbsListView.OnScrollListener.SCROLL_STATE_IDLE) {
+			long now = SystemClock.uptimeMillis();
+
+			if (translationsChanged) {
+				readTranslations();
 			}
 
-			lastSignificantScrollDirection = 0;
+			if (scrollTraceRecorder != null) {
+				scrollTraceRecorder.recordScrollStateChanged(engine, now, i);
+			}
 
-			if (revealOnIdle) {
-				if (idleRunnable != null) {
-					removeCallbacks(idleRunnable);
-				}
+			int action = engine.onScrollIdle(now);
 
-				idleRunnable = new Runnable() {
-					@Override
-					public void run () {
-						showHiddenQuickReturns(true);
-					}
-				};
+			if (scrollTraceRecorder != null) {
+				scrollTraceRecorder.recordHandled(engine);
+			}
+
+			performAction(action);
+
+			if (engine.isSettled()) {
+				// Not snapping into place, so the views are done moving for now.
+				restoreLayers();
+			}
 
-				postDelayed(idleRunnable, idleRevealDelay);
+			long idleRevealTime = engine.getIdleRevealTime();
+			if (idleRevealTime >= 0) {
+				removeCallbacks(idleRunnable);
+				postDelayed(idleRunnable, idleRevealTime - now);
 			}
+
+			reportMetrics();
+		} else if (scrollTraceRecorder != null) {
+			// The engine doesn't act on scrolling starting, but it's worth having in the trace.
+			readTranslations();
+			scrollTraceRecorder.recordScrollStateChanged(engine, SystemClock.uptimeMillis(), i);
+			scrollTraceRecorder.recordHandled(engine);
 		}
 	}
 
 	protected void handleScrollChanged ( int y, int oldY ) {
-		if (enableQuickReturn && scrollTallySignificantEnough(y, oldY)) {
-			if (revealOnIdle && idleRunnable != null) {
-				removeCallbacks(idleRunnable);
+		long start = metrics != null ? System.nanoTime() : 0;
+		long idleRevealTime = engine.getIdleRevealTime();
+
+		if (translationsChanged) {
+			readTranslations();
+		}
+
+		if (scrollTraceRecorder != null) {
+			scrollTraceRecorder.recordScrollChanged(engine, SystemClock.uptimeMillis(), y, oldY);
+		}
+
+		int action = engine.onScrollChanged(y, oldY);
+
+		if (scrollTraceRecorder != null) {
+			scrollTraceRecorder.recordHandled(engine);
+		}
+
+		performAction(action);
+
+		if (engine.getIdleRevealTime() != idleRevealTime) {
+			removeCallbacks(idleRunnable);
+		}
+
+		if (metrics != null) {
+			metrics.onScrollEventHandled(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Hands the metrics gathered since the last report to the listener, then starts over.
+	 */
+	protected void reportMetrics () {
+		if (metrics == null) {
+			return;
+		}
+
+		if (scrollYProvider instanceof IndexedScrollYProvider) {
+			IndexedScrollYProvider indexedScrollYProvider = (IndexedScrollYProvider) scrollYProvider;
+			metrics.setHeightCacheStats(indexedScrollYProvider.getCachedHeightCount(), indexedScrollYProvider.getHeightCacheLookups(), indexedScrollYProvider.getHeightCacheHits());
+			indexedScrollYProvider.resetHeightCacheCounters();
+		}
+
+		metricsListener.onMetricsReported(metrics);
+		metrics.reset();
+	}
+
+	/**
+	 * Carries out an action returned by the engine.
+	 *
+	 * @param action
+	 */
+	protected void performAction ( int action ) {
+		switch (action) {
+			case QuickReturnEngine.ACTION_TRANSLATE:
+				writeTranslations();
+				break;
+			case QuickReturnEngine.ACTION_SHOW:
+				showHiddenQuickReturns(true);
+				break;
+			case QuickReturnEngine.ACTION_HIDE:
+				hideShownQuickReturns(true);
+				break;
+		}
+	}
+
+	/**
+	 * Gives every view promoted to a hardware layer for moving its previous layer type back.
+	 */
+	protected void restoreLayers () {
+		for (int i = 0; i < headerAnimators.size(); i++) {
+			headerAnimators.get(i).restoreLayer();
+		}
+
+		for (int i = 0; i < footerAnimators.size(); i++) {
+			footerAnimators.get(i).restoreLayer();
+		}
+	}
+
+	/**
+	 * Brings the engine's translations up to date with the views, which animations and permanent hiding move directly.
+	 * While animations are running they keep moving the views, so the translations have to be read again next time.
+	 */
+	protected void readTranslations () {
+		translationsChanged = transitionTracker.isRunning();
+
+		for (int i = 0; i < headerSlots.size(); i++) {
+			headerSlots.setTranslation(i, animationBackend.getTranslationY(headerViews.get(i)));
+		}
+
+		for (int i = 0; i < footerSlots.size(); i++) {
+			footerSlots.setTranslation(i, animationBackend.getTranslationY(footerViews.get(i)));
+		}
+	}
+
+	/**
+	 * Moves a quick returned view without the engine knowing, so its translations are read again before the next
+	 * scroll event is handled.
+	 *
+	 * @param view
+	 * @param translationY
+	 */
+	protected void moveQuickReturnView ( View view, float translationY ) {
+		animationBackend.setTranslationY(view, translationY);
+		translationsChanged = true;
+	}
+
+	/**
+	 * Moves the quick returning views to the engine's translations.
+	 */
+	protected void writeTranslations () {
+		for (int i = 0; i < headerSlots.size(); i++) {
+			if (QuickReturnEngine.isQuickReturning(headerSlots, i)) {
+				headerAnimators.get(i).promoteLayer();
+				animationBackend.setTranslationY(headerViews.get(i), headerSlots.getTranslation(i));
 			}
+		}
 
-			if (revealListenerType == RevealListenerType.SCROLL) {
-				setQuickReturnViewTranslations(y, oldY);
-			} else if (revealListenerType == RevealListenerType.ANIMATED) {
-				setQuickReturnViewAnimations(y, oldY);
+		for (int i = 0; i < footerSlots.size(); i++) {
+			if (QuickReturnEngine.isQuickReturning(footerSlots, i)) {
+				footerAnimators.get(i).promoteLayer();
+				animationBackend.setTranslationY(footerViews.get(i), footerSlots.getTranslation(i));
 			}
 		}
 	}
 
+	/**
+	 * Sets a recorder for every scroll event, scroll state change, fling and tick handled from now on, along with the
+	 * configuration and state they were handled with, so that hard to reproduce glitches can be replayed with
+	 * ScrollTraceReplay. Nothing is recorded while no recorder is set.
+	 *
+	 * @param scrollTraceRecorder
+	 */
+	public void setScrollTraceRecorder ( ScrollTraceRecorder scrollTraceRecorder ) {
+		this.scrollTraceRecorder = scrollTraceRecorder;
+	}
+
 	public void setOnMarginRecalculatedListener ( OnMarginRecalculatedListener onMarginRecalculatedListener ) {
 		this.onMarginRecalculatedListener = onMarginRecalculatedListener;
 	}
+
+	/**
+	 * Sets a listener to receive counters of the work done for quick returning each time the observed view comes to
+	 * rest. Nothing is counted while no listener is set.
+	 *
+	 * @param metricsListener
+	 */
+	public void setMetricsListener ( QuickReturnMetricsListener metricsListener ) {
+		this.metricsListener = metricsListener;
+		metrics = metricsListener != null ? new QuickReturnMetrics() : null;
+	}
+
+	/**
+	 * What's kept of a QuickReturnContainer across configuration changes and process death.
+	 */
+	public static class SavedState extends BaseSavedState {
+		int animationState;
+		int[] headerFlags;
+		int[] footerFlags;
+		float[] headerTranslations;
+		float[] footerTranslations;
+		int runningTally;
+		int lastSignificantDirection;
+		int lastScrollY;
+		long observedViewScrollY;
+		IndexedScrollYProvider.SavedState scrollYProviderState;
+
+		SavedState ( Parcelable superState ) {
+			super(superState);
+		}
+
+		SavedState ( Parcel in ) {
+			super(in);
+
+			animationState = in.readInt();
+			headerFlags = in.createIntArray();
+			footerFlags = in.createIntArray();
+			headerTranslations = in.createFloatArray();
+			footerTranslations = in.createFloatArray();
+			runningTally = in.readInt();
+			lastSignificantDirection = in.readInt();
+			lastScrollY = in.readInt();
+			observedViewScrollY = in.readLong();
+			scrollYProviderState = in.readParcelable(IndexedScrollYProvider.SavedState.class.getClassLoader());
+		}
+
+		@Override
+		public void writeToParcel ( Parcel out, int flags ) {
+			super.writeToParcel(out, flags);
+
+			out.writeInt(animationState);
+			out.writeIntArray(headerFlags);
+			out.writeIntArray(footerFlags);
+			out.writeFloatArray(headerTranslations);
+			out.writeFloatArray(footerTranslations);
+			out.writeInt(runningTally);
+			out.writeInt(lastSignificantDirection);
+			out.writeInt(lastScrollY);
+			out.writeLong(observedViewScrollY);
+			out.writeParcelable(scrollYProviderState, flags);
+		}
+
+		public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+			@Override
+			public SavedState createFromParcel ( Parcel in ) {
+				return new SavedState(in);
+			}
+
+			@Override
+			public SavedState[] newArray ( int size ) {
+				return new SavedState[size];
+			}
+		};
+	}
 }
@@ -0,0 +1,11 @@
+package com.tippingcanoe.quickreturn.library;
+
+public interface QuickReturnMetricsListener {
+	/**
+	 * Called on the main thread each time the observed view comes to rest, with the counters since the previous call.
+	 * The metrics are reset right after, so copy out anything to keep.
+	 *
+	 * @param metrics
+	 */
+	public void onMetricsReported ( QuickReturnMetrics metrics );
+}
@@ -0,0 +1,132 @@
+package com.tippingcanoe.quickreturn.library;
+
+import android.view.animation.Interpolator;
+
+/**
+ * Gathers the views moving in one show or hide transition and runs them together. Either each view runs on its own
+ * animator, or a single driving animator computes the progress once per frame and moves every view in one pass, always
+ * on the UI thread. Views are promoted to hardware layers as they start moving, it's up to the owner to restore them
+ * when done.
+ */
+public class QuickReturnTransition implements AnimationBackend.FractionListener {
+	protected AnimationBackend backend;
+	protected AnimationBackend.Listener listener;
+	protected boolean singleDriver = false;
+	protected AnimationBackend.FractionAnimation driver;
+
+	protected TranslationAnimator[] queued = new TranslationAnimator[4];
+	protected int queuedCount = 0;
+
+	/**
+	 * @param backend
+	 * @param listener
+	 * 		Notified of the start and end of every animation run, whichever way the transition is driven.
+	 */
+	public QuickReturnTransition ( AnimationBackend backend, AnimationBackend.Listener listener ) {
+		this.backend = backend;
+		this.listener = listener;
+	}
+
+	/**
+	 * Switches to another backend for driving views together, cancelling anything it's driving on the current one.
+	 *
+	 * @param backend
+	 */
+	public void setBackend ( AnimationBackend backend ) {
+		if (driver != null) {
+			driver.cancel();
+			driver = null;
+		}
+
+		this.backend = backend;
+	}
+
+	/**
+	 * Sets whether transitions run on a single driving animator rather than one animator per view. Applies from the
+	 * next transition.
+	 *
+	 * @param singleDriver
+	 */
+	public void setSingleDriver ( boolean singleDriver ) {
+		this.singleDriver = singleDriver;
+	}
+
+	public boolean isSingleDriver () {
+		return singleDriver;
+	}
+
+	/**
+	 * Forgets the views queued for the previous transition.
+	 */
+	public void begin () {
+		queuedCount = 0;
+	}
+
+	/**
+	 * Queues a view to move from its current translation to the specified one.
+	 *
+	 * @param animator
+	 * @param translation
+	 */
+	public void queue ( TranslationAnimator animator, float translation ) {
+		if (queuedCount == queued.length) {
+			TranslationAnimator[] grown = new TranslationAnimator[queued.length * 2];
+			System.arraycopy(queued, 0, grown, 0, queuedCount);
+			queued = grown;
+		}
+
+		animator.setTarget(translation);
+		queued[queuedCount++] = animator;
+	}
+
+	/**
+	 * Starts moving the queued views.
+	 *
+	 * @param duration
+	 * @param interpolator
+	 * @return The number of views set in motion.
+	 */
+	public int start ( long duration, Interpolator interpolator ) {
+		if (queuedCount == 0) {
+			return 0;
+		}
+
+		if (singleDriver) {
+			for (int i = 0; i < queuedCount; i++) {
+				queued[i].promoteLayer();
+			}
+
+			if (driver == null) {
+				driver = backend.createFractionAnimation(this, listener);
+			}
+
+			driver.start(duration, interpolator);
+		} else {
+			for (int i = 0; i < queuedCount; i++) {
+				queued[i].start(duration, interpolator);
+			}
+		}
+
+		return queuedCount;
+	}
+
+	/**
+	 * Stops the views of the last transition where they are.
+	 */
+	public void cancel () {
+		if (driver != null) {
+			driver.cancel();
+		}
+
+		for (int i = 0; i < queuedCount; i++) {
+			queued[i].cancel();
+		}
+	}
+
+	@Override
+	public void onFraction ( float fraction ) {
+		for (int i = 0; i < queuedCount; i++) {
+			queued[i].setFraction(fraction);
+		}
+	}
+}
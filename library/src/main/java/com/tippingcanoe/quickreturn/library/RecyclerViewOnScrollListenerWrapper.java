@@ -2,17 +2,139 @@ package com.tippingcanoe.quickreturn.library;
 
 import android.support.v7.widget.RecyclerView;
 
+/**
+ * Turns RecyclerView scroll callbacks into absolute offsets. Offsets are kept by adding up each scroll's delta, and
+ * whenever the list lays out without scrolling, goes idle or has its adapter changed, the running offset is quietly
+ * corrected against the one the RecyclerView computes, so it can't drift.
+ */
 public abstract class RecyclerViewOnScrollListenerWrapper extends RecyclerView.OnScrollListener implements GenericOnScrollListener<RecyclerView> {
 	int runningX = 0;
 	int runningY = 0;
+	boolean runningYStale = false;
+
+	RecyclerView.Adapter observedAdapter;
+	RecyclerView.AdapterDataObserver adapterDataObserver = new RecyclerView.AdapterDataObserver() {
+		@Override
+		public void onChanged () {
+			runningYStale = true;
+			onAdapterDataChanged();
+		}
+
+		@Override
+		public void onItemRangeInserted ( int positionStart, int itemCount ) {
+			runningYStale = true;
+			onAdapterDataChanged();
+		}
+
+		@Override
+		public void onItemRangeRemoved ( int positionStart, int itemCount ) {
+			runningYStale = true;
+			onAdapterDataChanged();
+		}
+
+		@Override
+		public void onItemRangeMoved ( int fromPosition, int toPosition, int itemCount ) {
+			runningYStale = true;
+			onAdapterDataChanged();
+		}
+	};
 
 	@Override
 	public void onScrolled ( RecyclerView recyclerView, int dx, int dy ) {
 		super.onScrolled(recyclerView, dx, dy);
 
+		observeAdapter(recyclerView.getAdapter());
+
+		if (dx == 0 && dy == 0) {
+			// Called after a layout that changed the visible items, such as from scrollToPosition or a data change.
+			correctRunningY(recyclerView);
+			return;
+		}
+
+		if (runningYStale) {
+			runningY = computeScrollOffsetY(recyclerView) - dy;
+			runningYStale = false;
+		}
+
 		onScrollChanged(recyclerView, runningX + dx, runningY + dy, runningX, runningY);
 
 		runningX += dx;
 		runningY += dy;
 	}
+
+	@Override
+	public void onScrollStateChanged ( RecyclerView recyclerView, int newState ) {
+		super.onScrollStateChanged(recyclerView, newState);
+
+		if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+			correctRunningY(recyclerView);
+		}
+	}
+
+	/**
+	 * Replaces the running offset with the one computed by the RecyclerView, without reporting it as scrolling.
+	 *
+	 * @param recyclerView
+	 */
+	protected void correctRunningY ( RecyclerView recyclerView ) {
+		runningY = computeScrollOffsetY(recyclerView);
+		runningYStale = false;
+	}
+
+	public int getRunningY () {
+		return runningY;
+	}
+
+	/**
+	 * Sets the running offset, such as one saved before the RecyclerView was recreated. It's still corrected once the
+	 * RecyclerView lays out its restored position.
+	 *
+	 * @param runningY
+	 */
+	public void setRunningY ( int runningY ) {
+		this.runningY = runningY;
+		runningYStale = false;
+	}
+
+	/**
+	 * Returns the current vertical scroll offset of the RecyclerView. By default that's what its LayoutManager
+	 * computes for the scroll bar, which is exact for fixed height items and a close estimate otherwise. Override to
+	 * use a LayoutManager specific offset.
+	 *
+	 * @param recyclerView
+	 * @return
+	 */
+	protected int computeScrollOffsetY ( RecyclerView recyclerView ) {
+		return recyclerView.computeVerticalScrollOffset();
+	}
+
+	/**
+	 * Starts following structural changes to the specified adapter, replacing any previously observed one.
+	 *
+	 * @param adapter
+	 */
+	public void observeAdapter ( RecyclerView.Adapter adapter ) {
+		if (adapter == observedAdapter) {
+			return;
+		}
+
+		if (observedAdapter != null) {
+			observedAdapter.unregisterAdapterDataObserver(adapterDataObserver);
+		}
+
+		observedAdapter = adapter;
+		runningYStale = true;
+
+		if (adapter != null) {
+			adapter.registerAdapterDataObserver(adapterDataObserver);
+		}
+	}
+
+	/**
+	 * Called when items were added, removed or moved in the observed adapter. The running offset is corrected once the
+	 * RecyclerView lays out the change, but any movement tallied before the change no longer applies.
+	 */
+	protected void onAdapterDataChanged () {
+
+	}
 }
@@ -0,0 +1,68 @@
+package com.tippingcanoe.quickreturn.library;
+
+import android.view.Choreographer;
+
+/**
+ * Sums the scroll events arriving within one frame and passes them on as a single event when the next frame starts.
+ * Only to be created on Jelly Bean and above, on the main thread.
+ */
+public abstract class ScrollFrameCoalescer implements Choreographer.FrameCallback {
+	protected boolean pending = false;
+	protected int pendingOldY;
+	protected int pendingDelta;
+
+	/**
+	 * Adds a scroll event to those to be passed on with the next frame.
+	 *
+	 * @param y
+	 * @param oldY
+	 */
+	public void add ( int y, int oldY ) {
+		if (!pending) {
+			pending = true;
+			pendingOldY = oldY;
+			pendingDelta = 0;
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+
+		pendingDelta += y - oldY;
+	}
+
+	/**
+	 * Passes on any pending scrolling right away.
+	 */
+	public void flush () {
+		if (pending) {
+			Choreographer.getInstance().removeFrameCallback(this);
+			doFrame(0);
+		}
+	}
+
+	/**
+	 * Drops any pending scrolling.
+	 */
+	public void cancel () {
+		if (pending) {
+			Choreographer.getInstance().removeFrameCallback(this);
+			pending = false;
+		}
+	}
+
+	@Override
+	public void doFrame ( long frameTimeNanos ) {
+		pending = false;
+
+		// Scrolling that cancelled itself out within the frame isn't worth restarting the tally over.
+		if (pendingDelta != 0) {
+			onScrollChanged(pendingOldY + pendingDelta, pendingOldY);
+		}
+	}
+
+	/**
+	 * Called once per frame with the scrolling since the previous one.
+	 *
+	 * @param y
+	 * @param oldY
+	 */
+	abstract public void onScrollChanged ( int y, int oldY );
+}
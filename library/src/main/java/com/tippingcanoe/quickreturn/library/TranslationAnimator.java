@@ -0,0 +1,144 @@
+package com.tippingcanoe.quickreturn.library;
+
+import android.os.Build;
+import android.view.View;
+import android.view.animation.Interpolator;
+
+/**
+ * Animates the Y translation of one view, retargeted for each transition rather than built anew. The animation itself
+ * comes from the container's AnimationBackend and is created on first use.
+ */
+public class TranslationAnimator {
+	protected View view;
+	protected AnimationBackend backend;
+	protected AnimationBackend.Listener listener;
+	protected AnimationBackend.TranslationAnimation animation;
+	protected float fromTranslation;
+	protected float toTranslation;
+
+	protected boolean useHardwareLayer = true;
+	protected boolean hardwareLayerPromoted = false;
+	protected int previousLayerType;
+
+	/**
+	 * @param view
+	 * @param backend
+	 * @param listener
+	 * 		Notified of the start and end of every transition this animator runs itself.
+	 */
+	public TranslationAnimator ( View view, AnimationBackend backend, AnimationBackend.Listener listener ) {
+		this.view = view;
+		this.backend = backend;
+		this.listener = listener;
+	}
+
+	public View getView () {
+		return view;
+	}
+
+	/**
+	 * Switches to another backend, cancelling anything running on the current one.
+	 *
+	 * @param backend
+	 */
+	public void setBackend ( AnimationBackend backend ) {
+		cancel();
+		this.backend = backend;
+		animation = null;
+	}
+
+	/**
+	 * Sets whether the view should be drawn into a hardware layer while it moves, so that each frame only composites
+	 * the layer rather than redrawing the view. Only has an effect on Honeycomb and above.
+	 *
+	 * Default is true.
+	 *
+	 * @param useHardwareLayer
+	 */
+	public void setUseHardwareLayer ( boolean useHardwareLayer ) {
+		if (!useHardwareLayer) {
+			restoreLayer();
+		}
+
+		this.useHardwareLayer = useHardwareLayer;
+	}
+
+	/**
+	 * Moves the view to a hardware layer, if enabled, until restoreLayer is called.
+	 */
+	public void promoteLayer () {
+		if (useHardwareLayer && !hardwareLayerPromoted && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+			previousLayerType = view.getLayerType();
+			hardwareLayerPromoted = true;
+
+			if (previousLayerType != View.LAYER_TYPE_HARDWARE) {
+				view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+			}
+		}
+	}
+
+	/**
+	 * Gives the view back the layer type it had before promoteLayer.
+	 */
+	public void restoreLayer () {
+		if (hardwareLayerPromoted) {
+			hardwareLayerPromoted = false;
+
+			if (previousLayerType != View.LAYER_TYPE_HARDWARE) {
+				view.setLayerType(previousLayerType, null);
+			}
+		}
+	}
+
+	/**
+	 * Animates the view from its current translation to the specified one.
+	 *
+	 * @param translation
+	 * @param duration
+	 * @param interpolator
+	 */
+	public void animateTo ( float translation, long duration, Interpolator interpolator ) {
+		setTarget(translation);
+		start(duration, interpolator);
+	}
+
+	/**
+	 * Sets the translation to move to from the current one, without starting.
+	 *
+	 * @param translation
+	 */
+	public void setTarget ( float translation ) {
+		fromTranslation = backend.getTranslationY(view);
+		toTranslation = translation;
+	}
+
+	/**
+	 * Starts moving towards the target on this animator's own animation.
+	 *
+	 * @param duration
+	 * @param interpolator
+	 */
+	public void start ( long duration, Interpolator interpolator ) {
+		if (animation == null) {
+			animation = backend.createTranslationAnimation(view, listener);
+		}
+
+		promoteLayer();
+		animation.start(toTranslation, duration, interpolator);
+	}
+
+	/**
+	 * Places the view the specified fraction of the way to the target.
+	 *
+	 * @param fraction
+	 */
+	public void setFraction ( float fraction ) {
+		backend.setTranslationY(view, fromTranslation + (toTranslation - fromTranslation) * fraction);
+	}
+
+	public void cancel () {
+		if (animation != null) {
+			animation.cancel();
+		}
+	}
+}
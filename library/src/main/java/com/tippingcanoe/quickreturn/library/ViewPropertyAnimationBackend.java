@@ -0,0 +1,83 @@
+package com.tippingcanoe.quickreturn.library;
+
+import android.animation.TimeInterpolator;
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.View;
+import android.view.ViewPropertyAnimator;
+import android.view.animation.Interpolator;
+
+/**
+ * Runs each view's transitions on its own ViewPropertyAnimator, which the platform can hand to the render thread.
+ * Views driven together still use the platform's animators. Requires Lollipop.
+ *
+ * The render thread only takes animations without a listener, actions or a layer, so the end of a run is posted for
+ * when its duration has passed rather than listened for, and the hardware layer is left to the caller. The view's
+ * animator is shared with the app: only the Y translation is animated and cancelled, and the duration, start delay and
+ * interpolator the app set on it are put back after each run starts.
+ */
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public class ViewPropertyAnimationBackend extends NativeAnimationBackend {
+	@Override
+	public TranslationAnimation createTranslationAnimation ( final View view, final Listener listener ) {
+		return new TranslationAnimation() {
+			protected boolean running = false;
+			protected float targetTranslationY;
+
+			protected Runnable endAction = new Runnable() {
+				@Override
+				public void run () {
+					if (running) {
+						running = false;
+						view.setTranslationY(targetTranslationY);
+						listener.onAnimationEnded();
+					}
+				}
+			};
+
+			@Override
+			public void start ( float translationY, long duration, Interpolator interpolator ) {
+				// Like the platform's animators, restarting ends the previous run.
+				cancel();
+
+				targetTranslationY = translationY;
+				animateTranslationY(view, translationY, duration, interpolator);
+				running = true;
+				listener.onAnimationStarted();
+				view.postOnAnimationDelayed(endAction, duration);
+			}
+
+			@Override
+			public void cancel () {
+				if (running) {
+					running = false;
+					view.removeCallbacks(endAction);
+
+					// Starting the translation over where it is replaces the running one, leaving the app's alone.
+					animateTranslationY(view, view.getTranslationY(), 0, null);
+					listener.onAnimationCancelled();
+					listener.onAnimationEnded();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Starts animating the Y translation on the view's animator, then gives the animator back the app's settings.
+	 *
+	 * @param view
+	 * @param translationY
+	 * @param duration
+	 * @param interpolator
+	 */
+	protected static void animateTranslationY ( View view, float translationY, long duration, Interpolator interpolator ) {
+		ViewPropertyAnimator viewPropertyAnimator = view.animate();
+		long previousDuration = viewPropertyAnimator.getDuration();
+		long previousStartDelay = viewPropertyAnimator.getStartDelay();
+		TimeInterpolator previousInterpolator = viewPropertyAnimator.getInterpolator();
+
+		viewPropertyAnimator.translationY(translationY).setDuration(duration).setStartDelay(0).setInterpolator(interpolator).start();
+
+		viewPropertyAnimator.setDuration(previousDuration).setStartDelay(previousStartDelay).setInterpolator(previousInterpolator);
+	}
+}
@@ -0,0 +1,108 @@
+package com.tippingcanoe.quickreturn.library;
+
+import android.content.Context;
+import android.support.design.widget.CoordinatorLayout;
+import android.support.v4.view.ViewCompat;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.ContextThemeWrapper;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class QuickReturnBehaviorTest {
+	protected Context context;
+	protected CoordinatorLayout coordinatorLayout;
+	protected QuickReturnContainer container;
+	protected RecyclerView recyclerView;
+
+	@Before
+	public void setUp () {
+		context = new ContextThemeWrapper(RuntimeEnvironment.application, R.style.Theme_AppCompat);
+		coordinatorLayout = new CoordinatorLayout(context);
+		container = new QuickReturnContainer(context);
+		recyclerView = new RecyclerView(context);
+		recyclerView.setLayoutManager(new LinearLayoutManager(context));
+	}
+
+	@Test
+	public void siblingNestedScrollingReachesTheContainer () {
+		coordinatorLayout.addView(recyclerView, new CoordinatorLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+		coordinatorLayout.addView(container, createBehaviorLayoutParams());
+		container.setObservedView(recyclerView);
+		container.setFollowNestedScrolling(true);
+
+		scroll(30);
+
+		assertEquals(30, container.lastScrollY);
+		assertFalse(container.hasNestedScrollingParent());
+		assertEquals(0, container.getNestedScrollAxes());
+	}
+
+	@Test
+	public void siblingFlingsArePredicted () {
+		final float[] flingVelocity = new float[1];
+		container = new QuickReturnContainer(context) {
+			@Override
+			protected void handleFling ( float velocityY ) {
+				flingVelocity[0] = velocityY;
+				super.handleFling(velocityY);
+			}
+		};
+
+		coordinatorLayout.addView(recyclerView, new CoordinatorLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+		coordinatorLayout.addView(container, createBehaviorLayoutParams());
+		container.setObservedView(recyclerView);
+		container.setPredictFlings(true);
+
+		scroll(30);
+
+		assertEquals(4000, flingVelocity[0], 0);
+	}
+
+	@Test
+	public void childNestedScrollingIsPassedOnOnce () {
+		container.addView(recyclerView, new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+		coordinatorLayout.addView(container, createBehaviorLayoutParams());
+		container.setObservedView(recyclerView);
+		container.setFollowNestedScrolling(true);
+
+		scroll(30);
+
+		assertEquals(30, container.lastScrollY);
+		assertFalse(container.hasNestedScrollingParent());
+	}
+
+	protected CoordinatorLayout.LayoutParams createBehaviorLayoutParams () {
+		CoordinatorLayout.LayoutParams layoutParams = new CoordinatorLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+		layoutParams.setBehavior(new QuickReturnBehavior());
+
+		return layoutParams;
+	}
+
+	/**
+	 * Drags the recycler view by the specified distance and flings it, the way it reports to its nested scrolling
+	 * parent.
+	 *
+	 * @param distance
+	 */
+	protected void scroll ( int distance ) {
+		assertTrue(recyclerView.startNestedScroll(ViewCompat.SCROLL_AXIS_VERTICAL));
+		recyclerView.dispatchNestedPreScroll(0, distance, new int[2], null);
+		recyclerView.dispatchNestedScroll(0, distance, 0, 0, null);
+		recyclerView.dispatchNestedPreFling(0, 4000);
+		recyclerView.dispatchNestedFling(0, 4000, true);
+		recyclerView.stopNestedScroll();
+	}
+}